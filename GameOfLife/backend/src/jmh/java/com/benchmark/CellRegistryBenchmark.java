@@ -0,0 +1,101 @@
+package com.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import com.model.AsexualCell;
+import com.model.Cell;
+import com.model.SexualCell;
+import com.service.CellManager;
+import com.service.CellRegistry;
+import com.service.ExecutionMode;
+import com.service.ResourcePool;
+
+// birth/death churn on the live-cell registry, plus the snapshot every status frame takes
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CellRegistryBenchmark {
+    @Param({"1000", "100000"})
+    public int cells;
+
+    private CellRegistry registry;
+    private Cell[] population;
+
+    // each thread churns its own slice of the population so threads never swap the same slot
+    @State(Scope.Thread)
+    public static class Churner {
+        int base;
+        int slice;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setup(CellRegistryBenchmark shared, ThreadParams threads) {
+            slice = Math.max(1, shared.cells / threads.getThreadCount());
+            base = threads.getThreadIndex() * slice;
+            next = 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        ResourcePool pool = new ResourcePool(0);
+        CellManager manager = new CellManager(pool, ExecutionMode.HEADLESS);
+        registry = new CellRegistry();
+        // twice the population: the first half starts alive, the second half is waiting to be born
+        population = new Cell[cells * 2];
+        for (int i = 0; i < population.length; i++) {
+            population[i] = i % 2 == 0 ? new AsexualCell(i + 1, manager, pool) : new SexualCell(i + 1, manager, pool);
+            if (i < cells) registry.register(population[i]);
+        }
+    }
+
+    // one death and one birth, the population size stays put
+    private void churn(Churner churner) {
+        int i = churner.base + churner.next++ % churner.slice;
+        Cell dying = population[i];
+        Cell born = population[i + cells];
+        registry.unregister(dying);
+        registry.register(born);
+        population[i] = born;
+        population[i + cells] = dying;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int churn1(Churner churner) {
+        churn(churner);
+        return registry.getAliveCount();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int churn4(Churner churner) {
+        churn(churner);
+        return registry.getAliveCount();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Cell> snapshot() {
+        return registry.snapshot();
+    }
+}
@@ -0,0 +1,116 @@
+package com.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.service.CellManager;
+import com.service.ExecutionMode;
+import com.service.ResourcePool;
+
+// one pass of 10k cells over the per-iteration safepoint (checkPause twice plus a time scale read, like Cell.run
+// and sleepFor), nothing paused. the old lock + AtomicReference<Double> version is kept here as the baseline
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControlWordBenchmark {
+    private static final int CELLS = 10_000;
+
+    private CellManager manager;
+    private final LockedControl locked = new LockedControl();
+
+    // CellManager's pause and speed controls before the control word
+    static final class LockedControl {
+        private final AtomicReference<Double> timeScale = new AtomicReference<>(1.0);
+        private boolean isPaused = false;
+        private final ReentrantLock pauseLock = new ReentrantLock();
+        private final Condition resumed = pauseLock.newCondition();
+
+        void checkPause() {
+            pauseLock.lock();
+            try {
+                while (isPaused) {
+                    try { resumed.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); return; }
+                }
+            } finally {
+                pauseLock.unlock();
+            }
+        }
+
+        double getTimeScale() { return timeScale.get(); }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ResourcePool pool = new ResourcePool(0);
+        pool.setLogging(false);
+        manager = new CellManager(pool, ExecutionMode.HEADLESS);
+    }
+
+    private double lockedPass() {
+        double sum = 0;
+        for (int i = 0; i < CELLS; i++) {
+            locked.checkPause();
+            locked.checkPause();
+            sum += locked.getTimeScale();
+        }
+        return sum;
+    }
+
+    private double controlWordPass() {
+        double sum = 0;
+        for (int i = 0; i < CELLS; i++) {
+            manager.checkPause();
+            manager.checkPause();
+            sum += manager.getTimeScale();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(CELLS)
+    public double locked1() {
+        return lockedPass();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(CELLS)
+    public double controlWord1() {
+        return controlWordPass();
+    }
+
+    // cell threads hitting the safepoint together, where the shared lock hurts
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(CELLS)
+    public double locked4() {
+        return lockedPass();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(CELLS)
+    public double controlWord4() {
+        return controlWordPass();
+    }
+}
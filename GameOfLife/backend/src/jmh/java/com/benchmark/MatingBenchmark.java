@@ -0,0 +1,78 @@
+package com.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.model.SexualCell;
+import com.service.CellManager;
+import com.service.ExecutionMode;
+import com.service.ResourcePool;
+
+// CellManager.findMatingPartner with the whole population ready to mate.
+// cells are registered on a HEADLESS manager, which never steps them unless asked to
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatingBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int cells;
+
+    private CellManager manager;
+    private SexualCell[] population;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        ResourcePool pool = new ResourcePool(0);
+        pool.setLogging(false);
+        manager = new CellManager(pool, ExecutionMode.HEADLESS);
+        population = new SexualCell[cells];
+        for (int i = 0; i < cells; i++) {
+            population[i] = new SexualCell(manager.nextCellId(), manager, pool);
+            manager.addCell(population[i]);
+            manager.readyToMate(population[i]);
+        }
+    }
+
+    // one mating attempt; a pair that mates goes straight back into the queue so the population stays ready
+    private SexualCell attempt() {
+        SexualCell requester = population[Math.floorMod(cursor.getAndIncrement(), cells)];
+        manager.readyToMate(requester);
+        SexualCell partner = manager.findMatingPartner(requester);
+        if (partner != null) {
+            requester.resetAfterReproduction();
+            partner.resetAfterReproduction();
+            manager.readyToMate(partner);
+        }
+        return partner;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public SexualCell match1() {
+        return attempt();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SexualCell match4() {
+        return attempt();
+    }
+}
@@ -0,0 +1,126 @@
+package com.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.model.AsexualCell;
+import com.model.CellParameters;
+import com.model.SexualCell;
+import com.service.CellManager;
+import com.service.ExecutionMode;
+import com.service.ResourcePool;
+import com.service.SpatialWorld;
+
+// cell-updates per second (the cellUpdates counter) of the parallel engine on a crowded spatial world, by the size
+// of the ForkJoinPool it runs in. the event engine on the same world is the single-threaded baseline, it has its
+// own state without the workers parameter so it runs once
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelTickBenchmark {
+    private static final int CELLS = 50_000;
+    private static final long STEP_MS = 1000; // virtual time per invocation, ten ticks
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Updates {
+        public long cellUpdates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            cellUpdates = 0;
+        }
+    }
+
+    // fresh populations every iteration, the board fills up to the cap and food runs low over time
+    @State(Scope.Benchmark)
+    public static class Parallel {
+        @Param({"1", "2", "4", "8", "16", "32"})
+        public int workers;
+
+        private ForkJoinPool pool;
+        private CellManager manager;
+        private long horizon;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            pool = new ForkJoinPool(workers);
+            manager = populate(ExecutionMode.PARALLEL_HEADLESS);
+            horizon = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void teardown() {
+            pool.shutdownNow();
+            manager.stopAll();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Event {
+        private CellManager manager;
+        private long horizon;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            manager = populate(ExecutionMode.HEADLESS);
+            horizon = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void teardown() {
+            manager.stopAll();
+        }
+    }
+
+    private static CellManager populate(ExecutionMode mode) {
+        SpatialWorld world = new SpatialWorld(SpatialWorld.DEFAULT_SIDE);
+        ResourcePool food = new ResourcePool(10_000_000, world, new SplittableRandom(42));
+        food.setLogging(false);
+        CellManager manager = new CellManager(food, mode, CellParameters.DEFAULTS, world);
+        manager.setLimits(CELLS, Integer.MAX_VALUE);
+        for (int i = 0; i < CELLS; i++) {
+            manager.addCell(i % 2 == 0
+                    ? new AsexualCell(manager.nextCellId(), manager, food)
+                    : new SexualCell(manager.nextCellId(), manager, food));
+        }
+        return manager;
+    }
+
+    @Benchmark
+    public void parallel(Parallel state, Updates updates) {
+        CellManager manager = state.manager;
+        long before = manager.getCellUpdates();
+        long horizon = state.horizon += STEP_MS;
+        // called from inside the pool, so the regions fan out over its workers
+        state.pool.invoke(ForkJoinTask.adapt(() -> manager.runHeadless(horizon)));
+        updates.cellUpdates += manager.getCellUpdates() - before;
+    }
+
+    @Benchmark
+    public void event(Event state, Updates updates) {
+        CellManager manager = state.manager;
+        long before = manager.getCellUpdates();
+        manager.runHeadless(state.horizon += STEP_MS);
+        updates.cellUpdates += manager.getCellUpdates() - before;
+    }
+}
@@ -0,0 +1,86 @@
+package com.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.service.ResourcePool;
+
+// contended eating: every thread is a hungry cell, whoever finds the pool empty refills it
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourcePoolBenchmark {
+    private static final int REFILL = 1024;
+
+    // 0 = one stripe per core (the default), 1 = the old single semaphore
+    @Param({"0", "1"})
+    public int stripes;
+
+    private ResourcePool pool;
+    private final AtomicInteger nextCellId = new AtomicInteger(1);
+
+    @State(Scope.Thread)
+    public static class Eater {
+        int cellId;
+
+        @Setup(Level.Trial)
+        public void setup(ResourcePoolBenchmark shared) {
+            cellId = shared.nextCellId.getAndIncrement();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = stripes == 0 ? new ResourcePool(REFILL) : new ResourcePool(REFILL, stripes);
+        pool.setLogging(false);
+    }
+
+    private boolean eat(Eater eater) {
+        if (pool.tryToEatNow(eater.cellId)) return true;
+        pool.addFood(REFILL);
+        return false;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean eat1(Eater eater) {
+        return eat(eater);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean eat4(Eater eater) {
+        return eat(eater);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean eatMax(Eater eater) {
+        return eat(eater);
+    }
+
+    // a death drops food on the dying cell's home stripe, someone else eats it
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean dropAndEatMax(Eater eater) {
+        pool.addFoodFromDeadCell(eater.cellId);
+        return eat(eater);
+    }
+}
@@ -0,0 +1,76 @@
+package com.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameoflife.status.StatusDeltaEncoder;
+import com.gameoflife.status.StatusFrame;
+import com.gameoflife.status.StatusFrameProducer;
+import com.model.AsexualCell;
+import com.model.SexualCell;
+import com.service.CellManager;
+import com.service.ExecutionMode;
+import com.service.ResourcePool;
+
+// what one /status tick costs the server: snapshot, positions, sort and JSON, and the /stream delta or the binary
+// frame on top
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatusFrameBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int cells;
+
+    private StatusFrameProducer frames;
+    private StatusDeltaEncoder encoder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ResourcePool pool = new ResourcePool(500);
+        pool.setLogging(false);
+        CellManager manager = new CellManager(pool, ExecutionMode.HEADLESS);
+        for (int i = 0; i < cells; i++) {
+            int id = manager.nextCellId();
+            manager.addCell(i % 2 == 0 ? new AsexualCell(id, manager, pool) : new SexualCell(id, manager, pool));
+        }
+        frames = new StatusFrameProducer(manager, pool, objectMapper);
+        encoder = new StatusDeltaEncoder(objectMapper);
+    }
+
+    // every call is a new tick, the producer's 50ms cache is bypassed
+    @Benchmark
+    public StatusFrame buildFrame() {
+        frames.invalidate();
+        return frames.currentFrame(true, false);
+    }
+
+    @Benchmark
+    public StatusDeltaEncoder.Encoded buildFrameAndDelta() {
+        frames.invalidate();
+        return encoder.next(frames, frames.currentFrame(true, false));
+    }
+
+    // the binary frame and its gzip on top of the JSON one, what a binary poller costs per tick
+    @Benchmark
+    public byte[] buildFrameAndBinary() {
+        frames.invalidate();
+        return frames.binary(frames.currentFrame(true, false), "gzip");
+    }
+}
@@ -1,70 +1,152 @@
 package com.ai;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 @Service
 public class LMStudioService {
+    private static final int MAX_CACHED_SUMMARIES = 256;
+    // a failed call is what polls of it get back; only a new request after this long prompts the model again
+    private static final long RETRY_FAILED_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final String DONE = "[DONE]"; // OpenAI-style end of stream marker
+
     private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+
+    // digest of the cache key -> the one model call for it. a finished request is the cache entry,
+    // an unfinished one is what identical requests join instead of prompting the model again
+    private final Map<String, SummaryRequest> summaries = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SummaryRequest> eldest) {
+                    // calls still running stay findable, the least recently used finished ones make room
+                    Iterator<SummaryRequest> it = values().iterator();
+                    while (size() > MAX_CACHED_SUMMARIES && it.hasNext()) {
+                        if (it.next().result().isDone()) it.remove();
+                    }
+                    return false;
+                }
+            });
 
-    public LMStudioService(@Value("${LM_STUDIO_URL:http://localhost:1234}") String apiUrl) {
+    public LMStudioService(@Value("${LM_STUDIO_URL:http://localhost:1234}") String apiUrl, ObjectMapper objectMapper) {
         this.webClient = WebClient.builder()
                 .baseUrl(apiUrl)
                 .build();
+        this.objectMapper = objectMapper;
     }
 
-    private String callLMStudioAPI(String prompt){
-        try{
-            Map<String, Object> requestBody = new HashMap<>();
-            // Using a slightly more directive system prompt
-            requestBody.put("model", "qwen/qwen3-8b");
-            requestBody.put("messages", List.of(
-                    Map.of("role", "system", "content", "You are a software simulation logger. Provide a concise 3-sentence summary of the simulation run. Do not output internal thoughts."),
-                    Map.of("role", "user", "content", prompt)
-            ));
-            requestBody.put("temperature", 0.3);
-            requestBody.put("max_tokens", 300);
-            requestBody.put("stream", false);
-
-            Map<String, Object> response = webClient.post()
-                    .uri("/v1/chat/completions")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(Duration.ofSeconds(60))
-                    .block();
-
-            if (response != null && response.containsKey("choices")) {
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-                if (!choices.isEmpty()) {
-                    Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
-                    String content = (String) message.get("content");
-                    return cleanResponse(content);
-                }
+    // tokens replays the cleaned tokens generated so far to every subscriber and then follows the live ones,
+    // result is the whole cleaned text once the model is done
+    public record SummaryRequest(String id, Flux<String> tokens, CompletableFuture<String> result, long startedNanos) {}
+
+    // never blocks: the model call runs on the WebClient's event loop and completes the request.
+    // onGenerated runs once per actual model answer, not for requests that hit the cache or joined a running call
+    public SummaryRequest summarize(String cacheKey, String prompt, Consumer<String> onGenerated) {
+        String id = digest(cacheKey);
+        Flux<String> tokens = Flux.defer(() -> streamLMStudioAPI(prompt)).cache();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        SummaryRequest created = new SummaryRequest(id, tokens, result, System.nanoTime());
+        SummaryRequest existing;
+        while ((existing = summaries.putIfAbsent(id, created)) != null) {
+            if (!existing.result().isCompletedExceptionally() || created.startedNanos() - existing.startedNanos() < RETRY_FAILED_NANOS) {
+                return existing;
             }
-            return "Log entry empty.";
-        } catch(Exception e){
-            return "Error writing log: " + e.getMessage();
+            if (summaries.replace(id, existing, created)) break;
         }
+
+        // this subscription starts the one model call, stream endpoints attach to the cached tokens
+        tokens.collectList().map(parts -> String.join("", parts).trim()).toFuture().whenComplete((text, error) -> {
+            if (error != null) {
+                // stays in the cache as failed, pollers get "error" instead of starting the call over
+                result.completeExceptionally(error);
+                return;
+            }
+            try {
+                if (onGenerated != null) onGenerated.accept(text);
+            } finally {
+                result.complete(text);
+            }
+        });
+        return created;
     }
 
- 
-    private String cleanResponse(String raw) {
-        if (raw == null) return "";
-       
-        String cleaned = raw.replaceAll("(?s)<think>.*?</think>", "").trim();
-        
-        return cleaned.replaceAll("```", "");
+    // a request started earlier, for polling while it's pending; null once evicted
+    public SummaryRequest findSummary(String id) {
+        return id == null ? null : summaries.get(id);
     }
 
-    public String generateSimulationSummary(List<?> gameRecords){
-        if (gameRecords == null || gameRecords.isEmpty()) return "No data pending analysis.";
-        return callLMStudioAPI("Summarize these simulation metrics: " + gameRecords.toString());
+    public static String summaryPrompt(List<?> gameRecords) {
+        return "Summarize these simulation metrics: " + gameRecords.toString();
+    }
+
+    // the completion as a stream of cleaned tokens, so the first words reach the client as soon as they exist
+    private Flux<String> streamLMStudioAPI(String prompt){
+        Map<String, Object> requestBody = new HashMap<>();
+        // Using a slightly more directive system prompt
+        requestBody.put("model", "qwen/qwen3-8b");
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", "You are a software simulation logger. Provide a concise 3-sentence summary of the simulation run. Do not output internal thoughts."),
+                Map.of("role", "user", "content", prompt)
+        ));
+        requestBody.put("temperature", 0.3);
+        requestBody.put("max_tokens", 300);
+        requestBody.put("stream", true);
+
+        ThinkTagFilter filter = new ThinkTagFilter();
+        return webClient.post()
+                .uri("/v1/chat/completions")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(String.class) // the data of each SSE chunk
+                .timeout(Duration.ofSeconds(60)) // between chunks, a slow but live generation isn't cut off
+                .takeUntil(DONE::equals)
+                .filter(data -> !DONE.equals(data))
+                .map(data -> filter.accept(deltaContent(data)))
+                .concatWith(Mono.fromCallable(filter::finish))
+                .filter(token -> !token.isEmpty());
+    }
+
+    // {"choices":[{"delta":{"content":"..."}}]}, the first and last chunks carry no content
+    private String deltaContent(String data) {
+        try {
+            JsonNode content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+            return content.isTextual() ? content.asText() : "";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable completion chunk: " + data, e);
+        }
+    }
+
+    private static String digest(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
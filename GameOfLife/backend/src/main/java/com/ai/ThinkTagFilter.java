@@ -0,0 +1,79 @@
+package com.ai;
+
+// streaming version of the old cleanResponse: drops <think>...</think> sections and ``` fences from tokens as they
+// arrive, without ever seeing the whole answer. a tag can be split over several tokens ("<th", "ink>"), so a tail
+// that could still turn into one is held back until the next token decides it. one instance per completion
+public class ThinkTagFilter {
+    private static final String OPEN = "<think>";
+    private static final String CLOSE = "</think>";
+    private static final String FENCE = "```";
+
+    private final StringBuilder held = new StringBuilder();
+    private boolean inThink = false;
+    private boolean started = false; // leading whitespace is trimmed like the old whole-string trim()
+
+    // the part of this token that can be shown now, possibly empty
+    public String accept(String token) {
+        if (token == null || token.isEmpty()) return "";
+        held.append(token);
+        String buf = held.toString();
+        held.setLength(0);
+
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < buf.length()) {
+            if (inThink) {
+                int end = buf.indexOf(CLOSE, i);
+                if (end < 0) {
+                    held.append(buf, buf.length() - partialTail(buf, i, CLOSE), buf.length());
+                    break;
+                }
+                inThink = false;
+                i = end + CLOSE.length();
+                continue;
+            }
+            int think = buf.indexOf(OPEN, i);
+            int fence = buf.indexOf(FENCE, i);
+            int next = think < 0 ? fence : fence < 0 ? think : Math.min(think, fence);
+            if (next < 0) {
+                int keep = Math.max(partialTail(buf, i, OPEN), partialTail(buf, i, FENCE));
+                emit(out, buf.substring(i, buf.length() - keep));
+                held.append(buf, buf.length() - keep, buf.length());
+                break;
+            }
+            emit(out, buf.substring(i, next));
+            if (next == think) {
+                inThink = true;
+                i = next + OPEN.length();
+            } else {
+                i = next + FENCE.length();
+            }
+        }
+        return out.toString();
+    }
+
+    // end of the completion: a held partial tag was plain text after all, an unclosed think section is dropped
+    public String finish() {
+        StringBuilder out = new StringBuilder();
+        if (!inThink) emit(out, held.toString());
+        held.setLength(0);
+        return out.toString();
+    }
+
+    private void emit(StringBuilder out, String text) {
+        if (!started) {
+            text = text.stripLeading();
+            if (text.isEmpty()) return;
+            started = true;
+        }
+        out.append(text);
+    }
+
+    // length of the longest suffix of buf[from..] that is a proper prefix of tag
+    private static int partialTail(String buf, int from, String tag) {
+        for (int n = Math.min(tag.length() - 1, buf.length() - from); n > 0; n--) {
+            if (buf.regionMatches(buf.length() - n, tag, 0, n)) return n;
+        }
+        return 0;
+    }
+}
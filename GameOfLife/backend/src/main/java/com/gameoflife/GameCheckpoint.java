@@ -0,0 +1,157 @@
+package com.gameoflife;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// one point of a run's time series, taken every simulation.persistence.checkpoint-interval-ms.
+// births/deaths/divisions/reproductions count what happened since the previous checkpoint
+@Entity
+@Table(name = "game_checkpoints", indexes = @Index(name = "idx_checkpoints_game", columnList = "game_id, taken_at"))
+public class GameCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_checkpoints_seq")
+    @SequenceGenerator(name = "game_checkpoints_seq", sequenceName = "game_checkpoints_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "game_id")
+    private Integer gameId;
+
+    @Column(name = "sim_id")
+    private String simId;
+
+    @Column(name = "taken_at")
+    private LocalDateTime takenAt;
+
+    @Column(name = "elapsed_seconds")
+    private Integer elapsedSeconds;
+
+    @Column(name = "alive_asexual_cells")
+    private Integer aliveAsexualCells;
+
+    @Column(name = "alive_sexual_cells")
+    private Integer aliveSexualCells;
+
+    @Column(name = "available_food")
+    private Integer availableFood;
+
+    @Column(name = "births")
+    private Integer births;
+
+    @Column(name = "deaths")
+    private Integer deaths;
+
+    @Column(name = "divisions")
+    private Integer divisions;
+
+    @Column(name = "reproductions")
+    private Integer reproductions;
+
+    // the record may not have an id yet, the writer copies it into gameId once it has one
+    @Transient
+    private GameRecord game;
+
+    public GameCheckpoint() {
+        this.takenAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Integer gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getSimId() {
+        return simId;
+    }
+
+    public void setSimId(String simId) {
+        this.simId = simId;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+
+    public Integer getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public void setElapsedSeconds(Integer elapsedSeconds) {
+        this.elapsedSeconds = elapsedSeconds;
+    }
+
+    public Integer getAliveAsexualCells() {
+        return aliveAsexualCells;
+    }
+
+    public void setAliveAsexualCells(Integer aliveAsexualCells) {
+        this.aliveAsexualCells = aliveAsexualCells;
+    }
+
+    public Integer getAliveSexualCells() {
+        return aliveSexualCells;
+    }
+
+    public void setAliveSexualCells(Integer aliveSexualCells) {
+        this.aliveSexualCells = aliveSexualCells;
+    }
+
+    public Integer getAvailableFood() {
+        return availableFood;
+    }
+
+    public void setAvailableFood(Integer availableFood) {
+        this.availableFood = availableFood;
+    }
+
+    public Integer getBirths() {
+        return births;
+    }
+
+    public void setBirths(Integer births) {
+        this.births = births;
+    }
+
+    public Integer getDeaths() {
+        return deaths;
+    }
+
+    public void setDeaths(Integer deaths) {
+        this.deaths = deaths;
+    }
+
+    public Integer getDivisions() {
+        return divisions;
+    }
+
+    public void setDivisions(Integer divisions) {
+        this.divisions = divisions;
+    }
+
+    public Integer getReproductions() {
+        return reproductions;
+    }
+
+    public void setReproductions(Integer reproductions) {
+        this.reproductions = reproductions;
+    }
+
+    public GameRecord getGame() {
+        return game;
+    }
+
+    public void setGame(GameRecord game) {
+        this.game = game;
+    }
+}
@@ -0,0 +1,8 @@
+package com.gameoflife;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GameCheckpointRepository extends JpaRepository<GameCheckpoint, Long> {
+}
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 @Table(name="games")
 public class GameRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence, not IDENTITY: Hibernate can't batch inserts whose id the database hands out per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "games_seq")
+    @SequenceGenerator(name = "games_seq", sequenceName = "games_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name="duration_seconds")
@@ -41,6 +43,25 @@ public class GameRecord {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // only filled for headless batch runs
+    @Column(name = "batch_id")
+    private String batchId;
+
+    @Column(name = "seed")
+    private Long seed;
+
+    @Column(name = "initial_food")
+    private Integer initialFood;
+
+    @Column(name = "full_time_ms")
+    private Integer fullTimeMs;
+
+    @Column(name = "starve_time_ms")
+    private Integer starveTimeMs;
+
+    @Column(name = "meals_to_reproduce")
+    private Integer mealsToReproduce;
+
     public GameRecord() {
         this.createdAt = LocalDateTime.now();
     }
@@ -133,6 +154,54 @@ public class GameRecord {
         this.createdAt = createdAt;
     }
 
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public Integer getInitialFood() {
+        return initialFood;
+    }
+
+    public void setInitialFood(Integer initialFood) {
+        this.initialFood = initialFood;
+    }
+
+    public Integer getFullTimeMs() {
+        return fullTimeMs;
+    }
+
+    public void setFullTimeMs(Integer fullTimeMs) {
+        this.fullTimeMs = fullTimeMs;
+    }
+
+    public Integer getStarveTimeMs() {
+        return starveTimeMs;
+    }
+
+    public void setStarveTimeMs(Integer starveTimeMs) {
+        this.starveTimeMs = starveTimeMs;
+    }
+
+    public Integer getMealsToReproduce() {
+        return mealsToReproduce;
+    }
+
+    public void setMealsToReproduce(Integer mealsToReproduce) {
+        this.mealsToReproduce = mealsToReproduce;
+    }
+
     @Override
     public String toString() {
         return String.format(
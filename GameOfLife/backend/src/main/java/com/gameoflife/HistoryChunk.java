@@ -0,0 +1,95 @@
+package com.gameoflife;
+
+import jakarta.persistence.*;
+
+// a run of consecutive population samples (see HistorySamples for the packing), one row per persist interval
+@Entity
+@Table(name = "game_history", indexes = @Index(name = "idx_history_game", columnList = "game_id, first_ms"))
+public class HistoryChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_history_seq")
+    @SequenceGenerator(name = "game_history_seq", sequenceName = "game_history_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "game_id")
+    private Integer gameId;
+
+    @Column(name = "sim_id")
+    private String simId;
+
+    // ms since the run started
+    @Column(name = "first_ms")
+    private Long firstMs;
+
+    @Column(name = "last_ms")
+    private Long lastMs;
+
+    @Column(name = "sample_count")
+    private Integer sampleCount;
+
+    @Column(name = "samples", length = 1 << 20)
+    private byte[] samples;
+
+    @Transient
+    private GameRecord game;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Integer gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getSimId() {
+        return simId;
+    }
+
+    public void setSimId(String simId) {
+        this.simId = simId;
+    }
+
+    public Long getFirstMs() {
+        return firstMs;
+    }
+
+    public void setFirstMs(Long firstMs) {
+        this.firstMs = firstMs;
+    }
+
+    public Long getLastMs() {
+        return lastMs;
+    }
+
+    public void setLastMs(Long lastMs) {
+        this.lastMs = lastMs;
+    }
+
+    public Integer getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(Integer sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public byte[] getSamples() {
+        return samples;
+    }
+
+    public void setSamples(byte[] samples) {
+        this.samples = samples;
+    }
+
+    public GameRecord getGame() {
+        return game;
+    }
+
+    public void setGame(GameRecord game) {
+        this.game = game;
+    }
+}
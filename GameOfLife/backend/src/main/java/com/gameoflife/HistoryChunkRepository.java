@@ -0,0 +1,15 @@
+package com.gameoflife;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HistoryChunkRepository extends JpaRepository<HistoryChunk, Long> {
+
+    @Query("SELECT h FROM HistoryChunk h WHERE h.gameId = :gameId AND h.lastMs >= :from AND h.firstMs <= :to ORDER BY h.firstMs")
+    List<HistoryChunk> findOverlapping(@Param("gameId") Integer gameId, @Param("from") long from, @Param("to") long to);
+}
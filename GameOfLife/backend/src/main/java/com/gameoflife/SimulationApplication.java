@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
@@ -12,6 +13,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @ComponentScan(basePackages = {"com.gameoflife", "com.ai", "com.service", "com.model"})
 @EntityScan(basePackages = "com.gameoflife")
 @EnableJpaRepositories(basePackages = "com.gameoflife")
+@EnableScheduling
 public class SimulationApplication {
     public static void main(String[] args) {
         SpringApplication.run(SimulationApplication.class, args);
@@ -0,0 +1,16 @@
+package com.gameoflife.batch;
+
+import java.util.List;
+
+// parameter grid for a sweep: every combination of the lists is run `repeats` times.
+// missing lists fall back to the interactive defaults
+public record BatchRequest(
+        List<Integer> initialFood,
+        List<Integer> fullTime,
+        List<Integer> starveTime,
+        List<Integer> mealsToReproduce,
+        Integer repeats,
+        Long seed,
+        Integer horizonSeconds,
+        Integer maxCells
+) {}
@@ -0,0 +1,26 @@
+package com.gameoflife.batch;
+
+// one NDJSON line per run; a failed run carries its parameters and the error, with the outcome fields zeroed.
+// the run's game record is saved behind the stream, look it up by batchId and seed
+public record BatchRunResult(
+        String batchId,
+        int runIndex,
+        long seed,
+        int initialFood,
+        int fullTime,
+        int starveTime,
+        int mealsToReproduce,
+        long virtualMillis,
+        int aliveAsexual,
+        int aliveSexual,
+        int totalCells,
+        int divisions,
+        int reproductions,
+        String error
+) {
+    static BatchRunResult failed(String batchId, int runIndex, long seed, int initialFood, int fullTime, int starveTime,
+                                 int mealsToReproduce, String error) {
+        return new BatchRunResult(batchId, runIndex, seed, initialFood, fullTime, starveTime, mealsToReproduce,
+                0, 0, 0, 0, 0, 0, error);
+    }
+}
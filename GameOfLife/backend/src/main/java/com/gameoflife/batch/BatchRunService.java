@@ -0,0 +1,154 @@
+package com.gameoflife.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.gameoflife.GameRecord;
+import com.gameoflife.persistence.GameRecordWriter;
+import com.model.AsexualCell;
+import com.model.CellParameters;
+import com.model.SexualCell;
+import com.service.CellManager;
+import com.service.ExecutionMode;
+import com.service.ResourcePool;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+
+// headless Monte Carlo sweeps: every run is a single-threaded event simulation in virtual time,
+// runs go wide across a fork-join pool and stream back as they finish. their records go through the
+// write-behind, a worker never blocks on the database
+@Service
+public class BatchRunService {
+    private static final int DEFAULT_HORIZON_SECONDS = 600;
+    private static final int MAX_HORIZON_SECONDS = 7 * 24 * 3600;
+    private static final int DEFAULT_MAX_CELLS = 10_000;
+
+    private final GameRecordWriter gameRecordWriter;
+    private final ForkJoinPool workers;
+    private final int maxRuns;
+
+    public BatchRunService(GameRecordWriter gameRecordWriter,
+                           @Value("${simulation.batch.parallelism:0}") int parallelism,
+                           @Value("${simulation.batch.max-runs:100000}") int maxRuns) {
+        this.gameRecordWriter = gameRecordWriter;
+        this.workers = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxRuns = maxRuns;
+    }
+
+    private record RunSpec(int index, int initialFood, CellParameters params, long seed) {}
+
+    // the list, or the fallback alone when it's missing; every value has to be at least min
+    private static List<Integer> orDefault(String name, List<Integer> values, int fallback, int min) {
+        if (values == null || values.isEmpty()) return List.of(fallback);
+        for (Integer v : values) {
+            if (v == null || v < min) throw new IllegalArgumentException(name + " values must be at least " + min);
+        }
+        return values;
+    }
+
+    // throws IllegalArgumentException when a parameter is out of range or the grid is too large
+    public Flux<BatchRunResult> submit(BatchRequest request) {
+        int horizonSeconds = request.horizonSeconds() != null ? request.horizonSeconds() : DEFAULT_HORIZON_SECONDS;
+        if (horizonSeconds < 1 || horizonSeconds > MAX_HORIZON_SECONDS) {
+            throw new IllegalArgumentException("horizonSeconds must be between 1 and " + MAX_HORIZON_SECONDS);
+        }
+        int maxCells = request.maxCells() != null ? request.maxCells() : DEFAULT_MAX_CELLS;
+        if (maxCells < 1) throw new IllegalArgumentException("maxCells must be at least 1");
+        List<RunSpec> specs = expand(request);
+        String batchId = UUID.randomUUID().toString().substring(0, 8);
+        long horizonMs = 1000L * horizonSeconds;
+
+        return Flux.create(sink -> {
+            if (specs.isEmpty()) {
+                sink.complete();
+                return;
+            }
+            AtomicInteger remaining = new AtomicInteger(specs.size());
+            for (RunSpec spec : specs) {
+                workers.execute(() -> {
+                    try {
+                        if (!sink.isCancelled()) sink.next(run(batchId, spec, horizonMs, maxCells));
+                    } catch (RuntimeException e) {
+                        // the client sees the failure in the stream instead of a run that never shows up
+                        if (!sink.isCancelled()) sink.next(BatchRunResult.failed(batchId, spec.index(), spec.seed(),
+                                spec.initialFood(), spec.params().fullTime(), spec.params().starveTime(),
+                                spec.params().mealsToReproduce(), String.valueOf(e)));
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) sink.complete();
+                    }
+                });
+            }
+        });
+    }
+
+    private List<RunSpec> expand(BatchRequest request) {
+        List<Integer> foods = orDefault("initialFood", request.initialFood(), 20, 0);
+        List<Integer> fullTimes = orDefault("fullTime", request.fullTime(), CellParameters.DEFAULTS.fullTime(), 1);
+        List<Integer> starveTimes = orDefault("starveTime", request.starveTime(), CellParameters.DEFAULTS.starveTime(), 1);
+        List<Integer> meals = orDefault("mealsToReproduce", request.mealsToReproduce(),
+                CellParameters.DEFAULTS.mealsToReproduce(), 1);
+        int repeats = request.repeats() != null ? request.repeats() : 1;
+        if (repeats < 1) throw new IllegalArgumentException("repeats must be at least 1");
+
+        long total = (long) foods.size() * fullTimes.size() * starveTimes.size() * meals.size() * repeats;
+        if (total > maxRuns) throw new IllegalArgumentException("Batch of " + total + " runs exceeds the limit of " + maxRuns);
+
+        // seeds are drawn in grid order, so the same request and seed always gives the same runs
+        SplittableRandom seeds = new SplittableRandom(request.seed() != null ? request.seed() : System.nanoTime());
+        List<RunSpec> specs = new ArrayList<>((int) total);
+        for (int food : foods)
+            for (int full : fullTimes)
+                for (int starve : starveTimes)
+                    for (int meal : meals)
+                        for (int r = 0; r < repeats; r++)
+                            specs.add(new RunSpec(specs.size(), food, new CellParameters(full, starve, meal), seeds.nextLong()));
+        return specs;
+    }
+
+    private BatchRunResult run(String batchId, RunSpec spec, long horizonMs, int maxCells) {
+        ResourcePool pool = new ResourcePool(spec.initialFood(), 1, new SplittableRandom(spec.seed()));
+        pool.setLogging(false);
+        CellManager manager = new CellManager(pool, ExecutionMode.HEADLESS, spec.params());
+        manager.setLimits(maxCells, Integer.MAX_VALUE);
+
+        manager.addCell(new AsexualCell(manager.nextCellId(), manager, pool));
+        manager.addCell(new AsexualCell(manager.nextCellId(), manager, pool));
+        manager.addCell(new SexualCell(manager.nextCellId(), manager, pool));
+        manager.addCell(new SexualCell(manager.nextCellId(), manager, pool));
+
+        long virtualMillis = manager.runHeadless(horizonMs);
+
+        GameRecord record = new GameRecord();
+        record.setBatchId(batchId);
+        record.setSeed(spec.seed());
+        record.setInitialFood(spec.initialFood());
+        record.setFullTimeMs(spec.params().fullTime());
+        record.setStarveTimeMs(spec.params().starveTime());
+        record.setMealsToReproduce(spec.params().mealsToReproduce());
+        record.setDurationSeconds((int) (virtualMillis / 1000));
+        record.setTotalCells(manager.getTotalCellsCreated());
+        record.setAliveAsexualCells(manager.getAliveAsexualCount());
+        record.setAliveSexualCells(manager.getAliveSexualCount());
+        record.setNrDivisions(manager.getTotalDivisions());
+        record.setNrReproductions(manager.getTotalReproductions());
+        gameRecordWriter.enqueue(record);
+
+        return new BatchRunResult(batchId, spec.index(), spec.seed(), spec.initialFood(),
+                spec.params().fullTime(), spec.params().starveTime(), spec.params().mealsToReproduce(),
+                virtualMillis, manager.getAliveAsexualCount(), manager.getAliveSexualCount(),
+                manager.getTotalCellsCreated(), manager.getTotalDivisions(), manager.getTotalReproductions(), null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,37 @@
+package com.gameoflife.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.gameoflife.batch.BatchRequest;
+import com.gameoflife.batch.BatchRunResult;
+import com.gameoflife.batch.BatchRunService;
+
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/simulation/batch")
+@CrossOrigin(origins = "*")
+public class BatchController {
+
+    @Autowired
+    private BatchRunService batchRunService;
+
+    // one JSON line per finished run, in completion order; a failed run is a line with "error" set.
+    // thrown rather than returned as Flux.error, so a bad request is a 400 before any streaming starts
+    @PostMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchRunResult> runBatch(@RequestBody BatchRequest request) {
+        try {
+            return batchRunService.submit(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.gameoflife.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gameoflife.HistoryChunk;
+import com.gameoflife.HistoryChunkRepository;
+import com.gameoflife.history.HistoryDownsampler;
+import com.gameoflife.history.HistorySamples;
+import com.gameoflife.persistence.GameRecordWriter;
+import com.gameoflife.session.SessionRegistry;
+import com.gameoflife.session.SimulationSession;
+
+@RestController
+@RequestMapping("/api/simulation/history")
+@CrossOrigin(origins = "*")
+public class HistoryController {
+    private static final int MAX_POINTS = 5000;
+
+    @Autowired
+    private HistoryChunkRepository historyChunkRepository;
+
+    @Autowired
+    private SessionRegistry sessions;
+
+    @Autowired
+    private GameRecordWriter gameRecordWriter;
+
+    // population over time for one game, at most `points` min/max/avg buckets between from and to (ms into the run).
+    // a game that is still running also gets the samples that haven't been written yet
+    @GetMapping("/{gameId}")
+    public HistoryDownsampler.Result getHistory(@PathVariable Integer gameId,
+                                                @RequestParam(required = false, defaultValue = "500") Integer points,
+                                                @RequestParam(required = false, defaultValue = "0") Long from,
+                                                @RequestParam(required = false) Long to) {
+        long end = to != null ? to : Long.MAX_VALUE;
+        // unsaved samples first: one committed in between shows up twice, never not at all
+        SimulationSession live = sessions.findByGameId(gameId);
+        HistorySamples pending = live != null ? live.unpersistedHistory() : unsaved(gameId);
+        HistorySamples samples = new HistorySamples(1024);
+        for (HistoryChunk chunk : historyChunkRepository.findOverlapping(gameId, from, end)) {
+            HistorySamples.decode(chunk.getSamples(), samples);
+        }
+        if (pending != null) samples.addNewerThanLast(pending);
+
+        if (to == null) end = Math.max(from, samples.lastTime());
+        return HistoryDownsampler.downsample(gameId, samples, from, end, Math.min(points, MAX_POINTS));
+    }
+
+    // a finished game's last chunk can still be at the writer
+    private HistorySamples unsaved(Integer gameId) {
+        HistorySamples out = new HistorySamples(16);
+        for (HistoryChunk chunk : gameRecordWriter.unsavedHistory(gameId)) HistorySamples.decode(chunk.getSamples(), out);
+        return out;
+    }
+}
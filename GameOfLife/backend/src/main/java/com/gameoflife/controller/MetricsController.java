@@ -0,0 +1,26 @@
+package com.gameoflife.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.gameoflife.metrics.PrometheusWriter;
+import com.gameoflife.session.SessionRegistry;
+import com.gameoflife.session.SimulationSession;
+
+// scrape target for Prometheus (its default metrics_path), every live simulation in one response
+@RestController
+public class MetricsController {
+    @Autowired
+    private SessionRegistry sessions;
+
+    @GetMapping(value = "/metrics", produces = PrometheusWriter.CONTENT_TYPE)
+    public String metrics() {
+        List<SimulationSession> all = sessions.all();
+        // someone is watching these on a dashboard, they aren't idle
+        for (SimulationSession session : all) session.touch();
+        return PrometheusWriter.write(all);
+    }
+}
@@ -1,194 +1,345 @@
 package com.gameoflife.controller;
 
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ai.LMStudioService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gameoflife.GameRecord;
 import com.gameoflife.GameRecordRepository;
-import com.model.AsexualCell;
-import com.model.Cell;
-import com.model.SexualCell;
-import com.service.CellManager;
-import com.service.ResourcePool;
+import com.gameoflife.persistence.GameRecordWriter;
+import com.gameoflife.session.SessionRegistry;
+import com.gameoflife.session.SimulationSession;
+import com.gameoflife.status.StatusBinaryEncoder;
+import com.gameoflife.status.StatusDeltaEncoder;
+import com.gameoflife.status.StatusFrame;
+import com.gameoflife.status.StatusFrameProducer;
+import com.service.CellSnapshot;
+import com.service.EventLogReplayer;
+import com.service.ExecutionMode;
 
+import reactor.core.publisher.Flux;
+
+// every endpoint works on /api/simulation/... (the "default" simulation) or /api/simulation/{simId}/...
 @RestController
 @RequestMapping("/api/simulation")
-@CrossOrigin(origins = "*") 
+@CrossOrigin(origins = "*")
 public class SimulationController {
 
-    private CellManager manager;
-    private ResourcePool resourcePool;
-    private boolean running = false;
-    private boolean paused = false;
-    private int movementTick = 0;
-    private AtomicInteger idCounter = new AtomicInteger(1);
-
     @Autowired
     private GameRecordRepository gameRecordRepository;
 
+    @Autowired
+    private GameRecordWriter gameRecordWriter;
+
     @Autowired
     private LMStudioService lmStudioService;
 
-    private GameRecord currentGame;
-    private LocalDateTime startTime;
-    private int totalCellsCreated = 0;
-
-    @PostMapping("/start")
-    public Map<String, Object> startSimulation(@RequestParam(required = false, defaultValue = "20") Integer initialFood) {
-        if (manager != null && paused) {
-            paused = false;
-            running = true;
-            manager.setPaused(false);
-            return Map.of("status", "resumed");
-        }
-        
-        if (manager != null) manager.stopAll();
-        
-        resourcePool = new ResourcePool(initialFood);
-        manager = new CellManager(resourcePool);
-        idCounter.set(1);
-        movementTick = 0;
-
-        manager.addCell(new AsexualCell(idCounter.getAndIncrement(), manager, resourcePool));
-        manager.addCell(new AsexualCell(idCounter.getAndIncrement(), manager, resourcePool));
-        manager.addCell(new SexualCell(idCounter.getAndIncrement(), manager, resourcePool));
-        manager.addCell(new SexualCell(idCounter.getAndIncrement(), manager, resourcePool));
-
-        running = true;
-        paused = false;
-        startTime = LocalDateTime.now();
-        currentGame = new GameRecord();
-        totalCellsCreated = 4;
-
-        return Map.of("status", "started");
-    }
-
-    @PostMapping("/togglePause")
-    public Map<String, Object> togglePause() {
-        if (!running && !paused) return Map.of("error", "Game not started");
-        paused = !paused;
-        if (manager != null) manager.setPaused(paused);
-        if (paused) updateGameRecord();
-        return Map.of("status", paused ? "paused" : "running", "isPaused", paused);
-    }
-
-    @PostMapping("/addCell")
-    public Map<String, Object> addCell(@RequestParam(required = false, defaultValue = "asexual") String type) {
-        if (manager == null) return Map.of("error", "Game not started");
-        
-        int newId = idCounter.getAndIncrement();
-        Cell newCell = type.equalsIgnoreCase("sexual") 
-                ? new SexualCell(newId, manager, resourcePool) 
-                : new AsexualCell(newId, manager, resourcePool);
-                
-        manager.addCell(newCell);
-        totalCellsCreated++;
-        return Map.of("status", "added");
-    }
-
-    @PostMapping("/addFood")
-    public Map<String, Object> addFood() {
-        if (manager == null) return Map.of("error", "Start game first");
-        int alive = manager.getAliveCellsCount();
-        int amount = Math.max(5, alive + 5); 
-        resourcePool.addFood(amount);
-        return Map.of("status", "food added", "amount", amount);
-    }
-    
-    @PostMapping("/speed")
-    public Map<String, Object> changeSpeed(@RequestParam String action) {
-        if (manager == null) return Map.of("error", "Game not started");
-        manager.setSpeed(action);
-        return Map.of("status", "speed set to " + action);
-    }
-
-    @PostMapping("/reset")
-    public Map<String, Object> resetSimulation() {
-        if (manager != null) manager.stopAll();
-        running = false;
-        paused = false;
-        manager = null;
-        resourcePool = null;
-        return Map.of("status", "reset");
-    }
-    
-    @PostMapping("/killAll")
-    public Map<String, Object> killAll() {
-        if (manager != null) {
-            manager.killAll();
-            updateGameRecord();
-        }
-        return Map.of("status", "terminated");
-    }
-
-    @GetMapping("/status")
-    public Map<String, Object> getStatus() {
-        if (manager == null) {
-            return Map.of("running", false, "activeCells", List.of(), "food", List.of(), "aliveCount", 0);
-        }
-
-        if (!paused) movementTick++;
-
-        List<Map<String, Object>> cellData = new ArrayList<>();
-        List<Cell> currentCells = new ArrayList<>(manager.getCells());
-
-        for (Cell cell : currentCells) {
-            if (cell.isAlive()) {
-                double seed = cell.getId() * 11.0;
-                double x = 45.0 + 42.0 * Math.sin((movementTick * 0.05) + seed);
-                double y = 45.0 + 42.0 * Math.cos((movementTick * 0.04) + (seed * 1.5));
-
-                cellData.add(Map.of(
-                    "id", cell.getId(),
-                    "type", cell instanceof AsexualCell ? "Asexual" : "Sexual",
-                    "x", Math.max(2, Math.min(95, x)), 
-                    "y", Math.max(2, Math.min(95, y)),
-                    "alive", true,
-                    "isHungry", cell.isHungry(),
-                    "isReproducing", cell.isWantingToReproduce()
-                ));
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SessionRegistry sessions;
+
+    @Value("${ai.summary.live-interval-seconds:60}")
+    private long liveSummaryIntervalSeconds;
+
+    @PostMapping("/sessions")
+    public Map<String, Object> createSession() {
+        SimulationSession session = sessions.create();
+        if (session == null) return Map.of("error", "Simulation limit reached");
+        return Map.of("simId", session.getId());
+    }
+
+    @GetMapping("/sessions")
+    public List<Map<String, Object>> listSessions() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SimulationSession session : sessions.all()) {
+            result.add(Map.of(
+                "simId", session.getId(),
+                "state", session.getState().name().toLowerCase(),
+                "aliveCount", session.getAliveCount()
+            ));
+        }
+        return result;
+    }
+
+    @PostMapping({"/start", "/{simId}/start"})
+    public Map<String, Object> startSimulation(@PathVariable(required = false) String simId,
+                                               @RequestParam(required = false, defaultValue = "20") Integer initialFood,
+                                               @RequestParam(required = false, defaultValue = "platform") String mode,
+                                               @RequestParam(required = false) Long seed,
+                                               @RequestParam(required = false, defaultValue = "false") boolean spatial) {
+        SimulationSession session = sessions.acquire(simId, true);
+        try {
+            if (session == null) return Map.of("error", "Simulation limit reached");
+
+            // seeded runs go on the event engine, thread scheduling can't be replayed. the parallel engine merges in a
+            // fixed order and keeps its mode, it also needs the spatial world
+            ExecutionMode requested = ExecutionMode.fromString(mode);
+            ExecutionMode executionMode = seed != null && requested != ExecutionMode.PARALLEL ? ExecutionMode.EVENT : requested;
+            boolean spatialRun = spatial || executionMode == ExecutionMode.PARALLEL;
+            String status = session.start(initialFood, executionMode, seed, spatialRun);
+            if (status.equals("resumed")) return Map.of("status", status, "simId", session.getId());
+            return Map.of("status", status, "simId", session.getId(), "mode", executionMode.name().toLowerCase(),
+                    "spatial", spatialRun, "teardownMs", session.getLastTeardownMs());
+        } finally {
+            release(session);
+        }
+    }
+
+    @PostMapping({"/togglePause", "/{simId}/togglePause"})
+    public Map<String, Object> togglePause(@PathVariable(required = false) String simId) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            Boolean paused = session != null ? session.togglePause() : null;
+            if (paused == null) return Map.of("error", "Game not started");
+            if (paused) updateGameRecord(session);
+            return Map.of("status", paused ? "paused" : "running", "isPaused", paused);
+        } finally {
+            release(session);
+        }
+    }
+
+    @PostMapping({"/addCell", "/{simId}/addCell"})
+    public Map<String, Object> addCell(@PathVariable(required = false) String simId,
+                                       @RequestParam(required = false, defaultValue = "asexual") String type) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            if (session == null || session.getManager() == null) return Map.of("error", "Game not started");
+            if (!session.addCell(type)) return Map.of("error", "Cell limit reached");
+            return Map.of("status", "added");
+        } finally {
+            release(session);
+        }
+    }
+
+    @PostMapping({"/addFood", "/{simId}/addFood"})
+    public Map<String, Object> addFood(@PathVariable(required = false) String simId) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            int amount = session != null ? session.addFood() : -1;
+            if (amount < 0) return Map.of("error", "Start game first");
+            return Map.of("status", "food added", "amount", amount);
+        } finally {
+            release(session);
+        }
+    }
+
+    @PostMapping({"/speed", "/{simId}/speed"})
+    public Map<String, Object> changeSpeed(@PathVariable(required = false) String simId, @RequestParam String action) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            if (session == null || !session.setSpeed(action)) return Map.of("error", "Game not started");
+            return Map.of("status", "speed set to " + action);
+        } finally {
+            release(session);
+        }
+    }
+
+    @PostMapping({"/reset", "/{simId}/reset"})
+    public Map<String, Object> resetSimulation(@PathVariable(required = false) String simId) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            if (session == null) return Map.of("status", "reset");
+            session.reset();
+            return Map.of("status", "reset", "teardownMs", session.getLastTeardownMs());
+        } finally {
+            release(session);
+        }
+    }
+
+    @PostMapping({"/killAll", "/{simId}/killAll"})
+    public Map<String, Object> killAll(@PathVariable(required = false) String simId) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            if (session != null && session.killAll()) {
+                updateGameRecord(session);
+                return Map.of("status", "terminated", "teardownMs", session.getLastTeardownMs());
+            }
+            return Map.of("status", "terminated");
+        } finally {
+            release(session);
+        }
+    }
+
+    // JSON unless the client asks for StatusBinaryEncoder.MEDIA_TYPE, which also comes gzip/deflate compressed
+    // when Accept-Encoding allows. each representation has its own etag
+    @GetMapping({"/status", "/{simId}/status"})
+    public ResponseEntity<byte[]> getStatus(@PathVariable(required = false) String simId,
+                                            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                            @RequestHeader(value = "Accept", required = false) String accept,
+                                            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        SimulationSession session = sessions.find(simId);
+        StatusFrame frame = session != null ? session.statusFrame() : StatusFrameProducer.idleFrame();
+
+        boolean binary = StatusBinaryEncoder.accepts(accept);
+        String encoding = binary ? StatusBinaryEncoder.contentEncoding(acceptEncoding) : null;
+        String etag = binary ? variantEtag(frame.etag(), encoding != null ? "bin-" + encoding : "bin") : frame.etag();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy("Accept", "Accept-Encoding").build();
+        }
+        if (!binary) {
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy("Accept", "Accept-Encoding")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(frame.json());
+        }
+
+        StatusFrameProducer frames = session != null ? session.statusFrames() : null;
+        byte[] body = frames != null ? frames.binary(frame, encoding) : StatusFrameProducer.idleBinary(encoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy("Accept", "Accept-Encoding")
+                .contentType(MediaType.parseMediaType(StatusBinaryEncoder.MEDIA_TYPE));
+        if (encoding != null) response.header(HttpHeaders.CONTENT_ENCODING, encoding);
+        return response.body(body);
+    }
+
+    // the lease from sessions.acquire, if there was a session to lease
+    private static void release(SimulationSession session) {
+        if (session != null) session.release();
+    }
+
+    // "epoch-7" -> "epoch-7-bin-gzip"
+    private static String variantEtag(String etag, String variant) {
+        return etag.substring(0, etag.length() - 1) + "-" + variant + "\"";
+    }
+
+    // state of the current run at logical time at (ms), rebuilt from its event log
+    @GetMapping({"/replay", "/{simId}/replay"})
+    public ResponseEntity<Object> replay(@PathVariable(required = false) String simId,
+                                         @RequestParam(required = false, defaultValue = "" + Long.MAX_VALUE) long at) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            EventLogReplayer.ReplayState state = session != null ? session.replay(at) : null;
+            if (state == null) return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No event log for this simulation"));
+            return ResponseEntity.ok(state);
+        } finally {
+            release(session);
+        }
+    }
+
+    // saves the run to a memory-mapped snapshot file, named after the simulation unless name is given
+    @PostMapping({"/snapshot", "/{simId}/snapshot"})
+    public ResponseEntity<Object> snapshot(@PathVariable(required = false) String simId,
+                                           @RequestParam(required = false) String name) {
+        SimulationSession session = sessions.acquire(simId, false);
+        try {
+            if (session == null) return ResponseEntity.badRequest().body(Map.of("error", "Game not started"));
+            String file = name != null ? name : session.getId();
+            try {
+                CellSnapshot.Summary summary = session.saveSnapshot(file);
+                if (summary == null) return ResponseEntity.badRequest().body(Map.of("error", "Game not started"));
+                return ResponseEntity.ok(Map.of("status", "saved", "name", file, "cells", summary.cells(),
+                        "food", summary.food(), "bytes", summary.bytes(),
+                        "pausedMicros", summary.pausedMicros(), "tookMicros", summary.tookMicros()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (IllegalStateException e) {
+                // the engine didn't acknowledge the pause in time, the run goes on and the client may retry
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+            }
+        } finally {
+            release(session);
+        }
+    }
+
+    // replaces this simulation with a saved snapshot (possibly taken on another node), as a new running game
+    @PostMapping({"/restore", "/{simId}/restore"})
+    public ResponseEntity<Object> restore(@PathVariable(required = false) String simId,
+                                          @RequestParam(required = false) String from) {
+        SimulationSession session = sessions.acquire(simId, true);
+        try {
+            if (session == null) return ResponseEntity.badRequest().body(Map.of("error", "Simulation limit reached"));
+            String file = from != null ? from : session.getId();
+            try {
+                CellSnapshot.Restored restored = session.restoreSnapshot(file);
+                if (restored == null) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No snapshot named " + file));
+                }
+                return ResponseEntity.ok(Map.of("status", "restored", "simId", session.getId(), "cells", restored.cells(),
+                        "food", restored.food(), "mode", restored.manager().getExecutionMode().name().toLowerCase(),
+                        "tookMicros", restored.tookMicros()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        } finally {
+            release(session);
+        }
+    }
+
+    // keyframe first, then per-tick deltas. ticks the client isn't ready for are dropped, never buffered
+    @GetMapping(path = {"/stream", "/{simId}/stream"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamStatus(@PathVariable(required = false) String simId) {
+        StatusDeltaEncoder encoder = new StatusDeltaEncoder(objectMapper);
+        return Flux.interval(Duration.ofMillis(StatusFrameProducer.FRAME_INTERVAL_MS))
+                .onBackpressureDrop()
+                .handle((tick, sink) -> {
+                    SimulationSession session = sessions.find(simId);
+                    StatusFrameProducer frames = session != null ? session.statusFrames() : null;
+                    StatusFrame frame = session != null ? session.statusFrame() : StatusFrameProducer.idleFrame();
+                    StatusDeltaEncoder.Encoded encoded = encoder.next(frames, frame);
+                    if (encoded == null) return;
+                    sink.next(ServerSentEvent.builder(new String(encoded.json(), StandardCharsets.UTF_8))
+                            .event(encoded.event())
+                            .id(String.valueOf(encoded.version()))
+                            .build());
+                });
+    }
+
+    // never waits for the model: answers from the cache, or with status "pending" and a requestId to poll with
+    @GetMapping({"/ai/summary", "/{simId}/ai/summary"})
+    public Map<String, Object> getAISummary(@PathVariable(required = false) String simId,
+                                            @RequestParam(required = false, defaultValue = "3") Integer lastNgames,
+                                            @RequestParam(required = false) String requestId) {
+
+        if (requestId != null) {
+            LMStudioService.SummaryRequest pending = lmStudioService.findSummary(requestId);
+            if (pending != null) {
+                Map<String, Object> result = new HashMap<>();
+                putSummary(result, requestId, pending.result(), null);
+                return result;
             }
+            // evicted meanwhile, start over below
         }
 
-        List<Map<String, Object>> foodData = new ArrayList<>();
-        int foodCount = resourcePool.getAvailableFood();
-        int renderFood = Math.min(foodCount, 200); 
-        for (int i = 0; i < renderFood; i++) {
-            Random r = new Random(i * 5555L); 
-            foodData.add(Map.of("x", r.nextInt(90) + 5, "y", r.nextInt(90) + 5));
-        }
-
-        return Map.of(
-            "running", running,
-            "paused", paused,
-            "activeCells", cellData,
-            "food", foodData,
-            "availableFood", foodCount,
-            "aliveCount", manager.getAliveCellsCount()
-        );
-    }
-@GetMapping("/ai/summary")
-    public Map<String, Object> getAISummary(@RequestParam(required = false, defaultValue = "3") Integer lastNgames) {
-        
-      
-        if (manager != null) updateGameRecord();
-
-        List<GameRecord> recentGames = gameRecordRepository.findlastNGames(lastNgames);
-        
-        String summary = "No data available. Run a simulation first.";
+        SimulationSession session = sessions.find(simId);
+        if (session != null) updateGameRecord(session);
+
+        List<GameRecord> recentGames = recentGames(lastNgames);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("aiAnalysis", "No data available. Run a simulation first.");
+        result.put("status", "ready");
         int totalC = 0, survivors = 0, gens = 0, divs = 0;
 
         if (!recentGames.isEmpty()) {
@@ -197,46 +348,106 @@ public class SimulationController {
             survivors = last.getAliveAsexualCells() + last.getAliveSexualCells();
             gens = last.getNrReproductions() != null ? last.getNrReproductions() : 0;
             divs = last.getNrDivisions() != null ? last.getNrDivisions() : 0;
-            
-            try {
-                summary = lmStudioService.generateSimulationSummary(recentGames);
-            } catch (Exception e) {
-                summary = "AI SERVICE ERROR: " + e.getMessage();
+
+            // the same finished games with the same numbers hit the cache (or join the call already running).
+            // a live game's numbers change every second, it is keyed on its id and a coarse slice of its duration
+            // instead, which also holds it to one model call per slice
+            StringBuilder key = new StringBuilder();
+            for (GameRecord game : recentGames) {
+                // a record that was never flushed has no id yet, it is the game that just started
+                Integer id = game.getId();
+                key.append(id != null ? id : "new@" + System.identityHashCode(game)).append('=');
+                if (id == null || sessions.findByGameId(id) != null) {
+                    long seconds = game.getDurationSeconds() != null ? game.getDurationSeconds() : 0;
+                    key.append("live/").append(seconds / Math.max(1, liveSummaryIntervalSeconds));
+                } else {
+                    key.append(game);
+                }
+                key.append('\n');
             }
+            LMStudioService.SummaryRequest request = lmStudioService.summarize(key.toString(),
+                    LMStudioService.summaryPrompt(recentGames), text -> storeSummary(last, text));
+            putSummary(result, request.id(), request.result(), last.getSummary());
         }
 
-        return Map.of(
-            "aiAnalysis", summary, 
-            "totalCells", totalC, 
-            "generations", gens, 
-            "divisions", divs,   
-            "aliveCount", survivors
-        );
-    }
-
-    private void updateGameRecord() {
-        if (currentGame == null || manager == null) return;
-        
-        int aliveSexual = 0;
-        int aliveAsexual = 0;
-        for (Cell cell : manager.getCells()) {
-            if (cell.isAlive()) {
-                if (cell instanceof AsexualCell) aliveAsexual++;
-                else aliveSexual++;
-            }
+        result.put("totalCells", totalC);
+        result.put("generations", gens);
+        result.put("divisions", divs);
+        result.put("aliveCount", survivors);
+        return result;
+    }
+
+    // the summary's text as the model writes it: "token" events (JSON strings, SSE would eat a token's leading
+    // space), then "done" or "error". a finished summary replays at once
+    @GetMapping(value = {"/ai/summary/stream", "/{simId}/ai/summary/stream"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> streamAISummary(@PathVariable(required = false) String simId,
+                                                                         @RequestParam String requestId) {
+        LMStudioService.SummaryRequest request = lmStudioService.findSummary(requestId);
+        if (request == null) return ResponseEntity.notFound().build();
+
+        Flux<ServerSentEvent<String>> tokens = request.tokens()
+                .map(token -> ServerSentEvent.builder(toJson(token)).event("token").build());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(tokens
+                        .concatWith(Flux.just(ServerSentEvent.builder("").event("done").build()))
+                        .onErrorResume(e -> Flux.just(ServerSentEvent.builder(toJson("AI SERVICE ERROR: " + e.getMessage()))
+                                .event("error").build())));
+    }
+
+    private String toJson(String text) {
+        try {
+            return objectMapper.writeValueAsString(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
         }
-        
-        LocalDateTime endTime = LocalDateTime.now();
-        long duration = java.time.Duration.between(startTime, endTime).getSeconds();
-        currentGame.setDurationSeconds((int) duration);
-        currentGame.setTotalCells(totalCellsCreated);
-        currentGame.setAliveSexualCells(aliveSexual);
-        currentGame.setAliveAsexualCells(aliveAsexual);
-        
-        
-        currentGame.setNrReproductions(manager.getTotalReproductions()); // Sexual
-        currentGame.setNrDivisions(manager.getTotalDivisions());         // Asexual
-        
-        gameRecordRepository.save(currentGame);
+    }
+
+    private static void putSummary(Map<String, Object> result, String requestId, CompletableFuture<String> summary,
+                                   String previous) {
+        result.put("requestId", requestId);
+        if (!summary.isDone()) {
+            result.put("status", "pending");
+            // the last stored summary is better than nothing while the new one is generated
+            result.put("aiAnalysis", previous != null ? previous : "Generating analysis...");
+        } else if (summary.isCompletedExceptionally()) {
+            result.put("status", "error");
+            Throwable error = summary.handle((text, e) -> e).join();
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            result.put("aiAnalysis", "AI SERVICE ERROR: " + cause.getMessage());
+        } else {
+            result.put("status", "ready");
+            result.put("aiAnalysis", summary.join());
+        }
+    }
+
+    // runs on the WebClient thread once the model answers
+    // the committed games merged with the ones still in the write-behind, newest first. the request only reads,
+    // it never waits for a flush or writes to the database itself
+    private List<GameRecord> recentGames(int n) {
+        List<GameRecord> games = gameRecordWriter.pendingRecords();
+        for (GameRecord saved : gameRecordRepository.findlastNGames(n)) {
+            // a pending copy of a committed game is newer than its row
+            if (games.stream().noneMatch(g -> saved.getId().equals(g.getId()))) games.add(saved);
+        }
+        games.sort(Comparator.comparing(GameRecord::getId, Comparator.nullsFirst(Comparator.<Integer>reverseOrder()))
+                .thenComparing(GameRecord::getCreatedAt, Comparator.reverseOrder()));
+        return games.size() > n ? new ArrayList<>(games.subList(0, Math.max(0, n))) : games;
+    }
+
+    private void storeSummary(GameRecord game, String summary) {
+        if (summary != null && summary.length() > 2000) summary = summary.substring(0, 2000); // column length
+        SimulationSession live = game.getId() != null ? sessions.findByGameId(game.getId()) : null;
+        GameRecord liveGame = live != null ? live.attachSummary(game.getId(), summary) : null;
+        if (liveGame == null) {
+            game.setSummary(summary);
+            liveGame = game;
+        }
+        gameRecordWriter.enqueue(liveGame);
+    }
+
+    // write-behind, the request never waits for the database
+    private void updateGameRecord(SimulationSession session) {
+        gameRecordWriter.enqueue(session.refreshGameRecord());
     }
 }
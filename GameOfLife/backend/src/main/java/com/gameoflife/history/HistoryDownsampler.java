@@ -0,0 +1,81 @@
+package com.gameoflife.history;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// cuts [from, to] into equal time buckets and keeps min/max/avg of every metric per bucket,
+// so a chart gets at most `points` columns whatever the run length. empty buckets are left out
+public class HistoryDownsampler {
+
+    public record Series(int[] min, int[] max, double[] avg) {}
+
+    public record Result(Integer gameId, long from, long to, long bucketMs, int rawSamples,
+                         long[] t, Map<String, Series> metrics) {}
+
+    public static Result downsample(Integer gameId, HistorySamples samples, long from, long to, int points) {
+        int buckets = Math.max(1, points);
+        long bucketMs = Math.max(1, (to - from + buckets) / buckets);
+
+        int m = HistorySamples.METRICS;
+        long[] sums = new long[m];
+        int[] mins = new int[m];
+        int[] maxs = new int[m];
+        List<Long> times = new ArrayList<>();
+        List<int[]> bucketMins = new ArrayList<>(), bucketMaxs = new ArrayList<>();
+        List<double[]> bucketAvgs = new ArrayList<>();
+
+        int current = -1, count = 0, inRange = 0;
+        for (int i = 0; i <= samples.size(); i++) {
+            boolean done = i == samples.size();
+            long time = done ? 0 : samples.time(i);
+            if (!done && (time < from || time > to)) continue;
+            int bucket = done ? -2 : (int) Math.min(buckets - 1, (time - from) / bucketMs);
+
+            if (bucket != current && count > 0) {
+                times.add(from + current * bucketMs);
+                double[] avg = new double[m];
+                for (int k = 0; k < m; k++) avg[k] = (double) sums[k] / count;
+                bucketMins.add(mins.clone());
+                bucketMaxs.add(maxs.clone());
+                bucketAvgs.add(avg);
+                count = 0;
+            }
+            if (done) break;
+            if (count == 0) {
+                current = bucket;
+                for (int k = 0; k < m; k++) {
+                    sums[k] = 0;
+                    mins[k] = Integer.MAX_VALUE;
+                    maxs[k] = Integer.MIN_VALUE;
+                }
+            }
+            for (int k = 0; k < m; k++) {
+                int v = samples.value(k, i);
+                sums[k] += v;
+                if (v < mins[k]) mins[k] = v;
+                if (v > maxs[k]) maxs[k] = v;
+            }
+            count++;
+            inRange++;
+        }
+
+        // column form: one array per metric and statistic instead of an object per point
+        int n = times.size();
+        long[] t = new long[n];
+        for (int i = 0; i < n; i++) t[i] = times.get(i);
+        Map<String, Series> metrics = new LinkedHashMap<>();
+        for (int k = 0; k < m; k++) {
+            int[] min = new int[n], max = new int[n];
+            double[] avg = new double[n];
+            for (int i = 0; i < n; i++) {
+                min[i] = bucketMins.get(i)[k];
+                max[i] = bucketMaxs.get(i)[k];
+                avg[i] = Math.round(bucketAvgs.get(i)[k] * 100) / 100.0;
+            }
+            metrics.put(HistorySamples.NAMES[k], new Series(min, max, avg));
+        }
+        return new Result(gameId, from, to, bucketMs, inRange, t, metrics);
+    }
+}
@@ -0,0 +1,118 @@
+package com.gameoflife.history;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// growable column arrays of population samples, plus the packed form they're stored in:
+// per sample, zigzag varint deltas of the time and of every metric against the previous sample (~8 bytes a sample)
+public class HistorySamples {
+    public static final int ASEXUAL = 0;
+    public static final int SEXUAL = 1;
+    public static final int FOOD = 2;
+    public static final int DIVISIONS = 3;      // cumulative
+    public static final int REPRODUCTIONS = 4;  // cumulative
+    public static final int STARVATIONS = 5;    // cumulative
+    public static final int METRICS = 6;
+    public static final String[] NAMES = {"aliveAsexual", "aliveSexual", "food", "divisions", "reproductions", "starvations"};
+
+    private long[] times;
+    private final int[][] metrics = new int[METRICS][];
+    private int size;
+
+    public HistorySamples(int capacity) {
+        int cap = Math.max(16, capacity);
+        times = new long[cap];
+        for (int m = 0; m < METRICS; m++) metrics[m] = new int[cap];
+    }
+
+    public void add(long timeMs, int[] values) {
+        if (size == times.length) grow();
+        times[size] = timeMs;
+        for (int m = 0; m < METRICS; m++) metrics[m][size] = values[m];
+        size++;
+    }
+
+    public void addAll(HistorySamples other) {
+        int[] values = new int[METRICS];
+        for (int i = 0; i < other.size; i++) {
+            for (int m = 0; m < METRICS; m++) values[m] = other.metrics[m][i];
+            add(other.times[i], values);
+        }
+    }
+
+    // the other's samples after the last one here: the same sample can be both persisted and still pending
+    public void addNewerThanLast(HistorySamples other) {
+        long last = size == 0 ? Long.MIN_VALUE : times[size - 1];
+        int[] values = new int[METRICS];
+        for (int i = 0; i < other.size; i++) {
+            if (other.times[i] <= last) continue;
+            for (int m = 0; m < METRICS; m++) values[m] = other.metrics[m][i];
+            add(other.times[i], values);
+        }
+    }
+
+    private void grow() {
+        int cap = times.length * 2;
+        times = Arrays.copyOf(times, cap);
+        for (int m = 0; m < METRICS; m++) metrics[m] = Arrays.copyOf(metrics[m], cap);
+    }
+
+    public int size() { return size; }
+    public long time(int i) { return times[i]; }
+    public int value(int metric, int i) { return metrics[metric][i]; }
+    public long firstTime() { return size == 0 ? -1 : times[0]; }
+    public long lastTime() { return size == 0 ? -1 : times[size - 1]; }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 8 + 8);
+        putVarLong(out, size);
+        long prevTime = 0;
+        int[] prev = new int[METRICS];
+        for (int i = 0; i < size; i++) {
+            putVarLong(out, zigzag(times[i] - prevTime));
+            prevTime = times[i];
+            for (int m = 0; m < METRICS; m++) {
+                putVarLong(out, zigzag((long) metrics[m][i] - prev[m]));
+                prev[m] = metrics[m][i];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static HistorySamples decode(byte[] packed, HistorySamples into) {
+        ByteBuffer in = ByteBuffer.wrap(packed);
+        int count = (int) getVarLong(in);
+        HistorySamples samples = into != null ? into : new HistorySamples(count);
+        long time = 0;
+        int[] values = new int[METRICS];
+        for (int i = 0; i < count; i++) {
+            time += unzigzag(getVarLong(in));
+            for (int m = 0; m < METRICS; m++) values[m] += (int) unzigzag(getVarLong(in));
+            samples.add(time, values);
+        }
+        return samples;
+    }
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+    private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    private static void putVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.gameoflife.history;
+
+// per-run ring buffer of samples. the sampler appends every tick, the persister drains whatever it hasn't
+// stored yet; if it falls a whole ring behind, the oldest unsaved samples are overwritten and counted as lost
+public class PopulationHistory {
+    private final int capacity;
+    private final long[] times;
+    private final int[][] metrics;
+    private long written = 0;   // samples ever appended, the next one goes to written % capacity
+    private long persisted = 0; // samples handed to drain()
+    private long lost = 0;
+
+    public PopulationHistory(int capacity) {
+        this.capacity = Math.max(16, capacity);
+        this.times = new long[this.capacity];
+        this.metrics = new int[HistorySamples.METRICS][this.capacity];
+    }
+
+    public synchronized void sample(long timeMs, int[] values) {
+        int i = (int) (written % capacity);
+        times[i] = timeMs;
+        for (int m = 0; m < HistorySamples.METRICS; m++) metrics[m][i] = values[m];
+        written++;
+    }
+
+    // everything not yet drained, oldest first; null when there is nothing new
+    public synchronized HistorySamples drain() {
+        HistorySamples out = copy(persisted);
+        persisted = written;
+        return out;
+    }
+
+    // undrained samples, for serving a live run's tail without touching persisted state
+    public synchronized HistorySamples pending() {
+        return copy(persisted);
+    }
+
+    private HistorySamples copy(long from) {
+        if (written - from > capacity) {
+            lost += written - from - capacity;
+            from = written - capacity;
+            persisted = Math.max(persisted, from);
+        }
+        if (from >= written) return null;
+        HistorySamples out = new HistorySamples((int) (written - from));
+        int[] values = new int[HistorySamples.METRICS];
+        for (long s = from; s < written; s++) {
+            int i = (int) (s % capacity);
+            for (int m = 0; m < HistorySamples.METRICS; m++) values[m] = metrics[m][i];
+            out.add(times[i], values);
+        }
+        return out;
+    }
+
+    public synchronized long getLostSamples() { return lost; }
+}
@@ -0,0 +1,115 @@
+package com.gameoflife.metrics;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import com.gameoflife.session.SimulationSession;
+import com.service.CellManager;
+import com.service.ConsoleLog;
+import com.service.LatencyHistogram;
+import com.service.ResourcePool;
+import com.service.SimulationMetrics;
+
+// Prometheus text exposition format (version 0.0.4) for every simulation that has a manager, labelled by sim id.
+// a family's HELP/TYPE comes once with all of its samples right after, as the format wants
+public class PrometheusWriter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // what the writer needs from one running simulation
+    private record Target(String sim, CellManager manager, SimulationMetrics metrics, ResourcePool pool) {}
+
+    private final StringBuilder out = new StringBuilder(4096);
+    private final List<Target> targets;
+
+    private PrometheusWriter(List<Target> targets) {
+        this.targets = targets;
+    }
+
+    public static String write(List<SimulationSession> sessions) {
+        List<Target> targets = sessions.stream()
+                .filter(s -> s.getManager() != null)
+                .map(s -> new Target(s.getId(), s.getManager(), s.getManager().getMetrics(), s.getResourcePool()))
+                .toList();
+        PrometheusWriter w = new PrometheusWriter(targets);
+
+        w.header("gameoflife_sessions", "Simulations with a running or paused manager", "gauge");
+        w.sample("gameoflife_sessions", "", targets.size());
+
+        w.gauge("gameoflife_cells_alive_asexual", "Living asexual cells", t -> t.manager().getAliveAsexualCount());
+        w.gauge("gameoflife_cells_alive_sexual", "Living sexual cells", t -> t.manager().getAliveSexualCount());
+        w.gauge("gameoflife_food_available", "Food units in the pool", t -> t.pool() != null ? t.pool().getAvailableFood() : 0);
+
+        w.counter("gameoflife_meals_total", "Meals eaten", t -> t.metrics().getMeals());
+        w.counter("gameoflife_starvations_total", "Cells that starved", t -> t.metrics().getStarvations());
+        w.counter("gameoflife_divisions_total", "Asexual divisions", t -> t.metrics().getDivisions());
+        w.counter("gameoflife_reproductions_total", "Sexual reproductions", t -> t.metrics().getReproductions());
+        w.counter("gameoflife_mating_searches_total", "findMatingPartner calls", t -> t.metrics().getMatingSearches());
+        w.counter("gameoflife_mating_search_failures_total", "findMatingPartner calls that found nobody",
+                t -> t.metrics().getMatingFailures());
+        w.counter("gameoflife_cell_updates_total", "Cell steps of the event engines", t -> t.manager().getCellUpdates());
+
+        w.histogram("gameoflife_eat_wait_seconds", "Time a cell thread spent waiting for food",
+                SimulationMetrics::getEatWait);
+        w.histogram("gameoflife_mating_search_seconds", "Duration of a sampled partner search, one in 64",
+                SimulationMetrics::getMatingSearch);
+        w.histogram("gameoflife_pause_wait_seconds", "Time a thread spent parked on a pause",
+                SimulationMetrics::getPauseWait);
+        w.histogram("gameoflife_status_build_seconds", "Duration of building one status frame",
+                SimulationMetrics::getStatusBuild);
+
+        // process-wide, every pool shares the one console log
+        ConsoleLog log = ConsoleLog.stdout();
+        w.header("gameoflife_console_log_dropped_total", "Console log records dropped on a full ring", "counter");
+        w.sample("gameoflife_console_log_dropped_total", "", log.getDropped());
+        w.header("gameoflife_console_log_suppressed_total", "Console log lines left out over the rate limit", "counter");
+        w.sample("gameoflife_console_log_suppressed_total", "", log.getSuppressed());
+        return w.out.toString();
+    }
+
+    private void header(String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private void gauge(String name, String help, ToDoubleFunction<Target> value) {
+        header(name, help, "gauge");
+        for (Target t : targets) sample(name, simLabel(t), value.applyAsDouble(t));
+    }
+
+    private void counter(String name, String help, ToDoubleFunction<Target> value) {
+        header(name, help, "counter");
+        for (Target t : targets) sample(name, simLabel(t), value.applyAsDouble(t));
+    }
+
+    private void histogram(String name, String help, Function<SimulationMetrics, LatencyHistogram> select) {
+        header(name, help, "histogram");
+        for (Target t : targets) {
+            LatencyHistogram h = select.apply(t.metrics());
+            String sim = simLabel(t);
+            long cumulative = 0;
+            for (int i = 0; i < h.bucketCount(); i++) {
+                cumulative += h.count(i);
+                sample(name + "_bucket", sim + ",le=\"" + format(h.upperBoundSeconds(i)) + "\"", cumulative);
+            }
+            sample(name + "_sum", sim, h.sumSeconds());
+            sample(name + "_count", sim, cumulative);
+        }
+    }
+
+    private static String simLabel(Target t) {
+        return "sim=\"" + t.sim().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String format(double v) {
+        if (v == Double.POSITIVE_INFINITY) return "+Inf";
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+}
@@ -0,0 +1,195 @@
+package com.gameoflife.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gameoflife.GameCheckpoint;
+import com.gameoflife.GameCheckpointRepository;
+import com.gameoflife.GameRecord;
+import com.gameoflife.GameRecordRepository;
+import com.gameoflife.HistoryChunk;
+import com.gameoflife.HistoryChunkRepository;
+import com.service.ConsoleLog;
+
+import jakarta.annotation.PreDestroy;
+
+// write-behind for game records and the rows hanging off them (checkpoints, history chunks):
+// request threads only mark a record dirty, the scheduler thread saves everything dirty in chunked saveAll calls
+// (JDBC batches, see hibernate.jdbc.batch_size). a record marked dirty ten times between flushes is written once
+@Component
+public class GameRecordWriter {
+    private final GameRecordRepository gameRecordRepository;
+    private final int chunkSize;
+
+    // identity set, GameRecord doesn't override equals
+    private final Set<GameRecord> dirty = ConcurrentHashMap.newKeySet();
+    // records taken out of dirty by the running flush, until they are committed or dirty again
+    private volatile List<GameRecord> savingRecords = List.of();
+    private final PendingRows<GameCheckpoint> checkpoints;
+    private final PendingRows<HistoryChunk> historyChunks;
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    public GameRecordWriter(GameRecordRepository gameRecordRepository,
+                            GameCheckpointRepository checkpointRepository,
+                            HistoryChunkRepository historyChunkRepository,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int chunkSize,
+                            @Value("${simulation.persistence.max-pending-rows:100000}") int maxPendingRows) {
+        this.gameRecordRepository = gameRecordRepository;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.checkpoints = new PendingRows<>(checkpointRepository, GameCheckpoint::getGame, GameCheckpoint::setGameId, maxPendingRows);
+        this.historyChunks = new PendingRows<>(historyChunkRepository, HistoryChunk::getGame, HistoryChunk::setGameId, maxPendingRows);
+    }
+
+    // rows that need their game's generated id, which only exists once the record has been flushed
+    private final class PendingRows<T> {
+        final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger(); // queue.size() walks the whole queue
+        final AtomicLong dropped = new AtomicLong();
+        // rows taken off the queue by the running flush, until they are committed or back on the queue
+        List<T> saving = List.of();
+        final JpaRepository<T, ?> repository;
+        final Function<T, GameRecord> gameOf;
+        final BiConsumer<T, Integer> setGameId;
+        final int max;
+
+        PendingRows(JpaRepository<T, ?> repository, Function<T, GameRecord> gameOf, BiConsumer<T, Integer> setGameId, int max) {
+            this.repository = repository;
+            this.gameOf = gameOf;
+            this.setGameId = setGameId;
+            this.max = max;
+        }
+
+        // with the database down for long, the oldest rows go first rather than the heap
+        void add(T row) {
+            queue.add(row);
+            if (pending.incrementAndGet() > max && queue.poll() != null) {
+                pending.decrementAndGet();
+                dropped.incrementAndGet();
+            }
+        }
+
+        void flush() {
+            List<T> ready = new ArrayList<>();
+            List<T> waiting = new ArrayList<>();
+            // under the lock a row is always either queued, being saved or committed, so unsaved() never misses one
+            synchronized (this) {
+                T row;
+                while ((row = queue.poll()) != null) {
+                    pending.decrementAndGet();
+                    GameRecord game = gameOf.apply(row);
+                    if (game != null && game.getId() == null) {
+                        waiting.add(row); // its record isn't in the database yet
+                        continue;
+                    }
+                    if (game != null) setGameId.accept(row, game.getId());
+                    ready.add(row);
+                }
+                List<T> taken = new ArrayList<>(ready);
+                taken.addAll(waiting);
+                saving = taken;
+            }
+            if (!saveInChunks(ready, repository)) waiting.addAll(ready);
+            synchronized (this) {
+                for (T retry : waiting) add(retry);
+                saving = List.of();
+            }
+        }
+
+        // rows of this game that aren't committed yet (some may be committed by the time the caller looks)
+        synchronized List<T> unsaved(Integer gameId) {
+            List<T> rows = new ArrayList<>();
+            for (T row : queue) if (belongsTo(row, gameId)) rows.add(row);
+            for (T row : saving) if (belongsTo(row, gameId)) rows.add(row);
+            return rows;
+        }
+
+        private boolean belongsTo(T row, Integer gameId) {
+            GameRecord game = gameOf.apply(row);
+            return game != null && gameId.equals(game.getId());
+        }
+    }
+
+    public void enqueue(GameRecord record) {
+        if (record != null) dirty.add(record);
+    }
+
+    public void enqueue(GameCheckpoint checkpoint) {
+        if (checkpoint != null) checkpoints.add(checkpoint);
+    }
+
+    public void enqueue(HistoryChunk chunk) {
+        if (chunk != null) historyChunks.add(chunk);
+    }
+
+    // a game's history chunks still on their way to the database, oldest first
+    public List<HistoryChunk> unsavedHistory(Integer gameId) {
+        List<HistoryChunk> chunks = historyChunks.unsaved(gameId);
+        chunks.sort(Comparator.comparing(HistoryChunk::getFirstMs));
+        return chunks;
+    }
+
+    // records not committed yet, in no particular order. the same objects the sessions hold, so a reader
+    // sees their latest numbers without waiting for a flush (one may be committed by the time it looks)
+    public List<GameRecord> pendingRecords() {
+        // identity, and a batch sweep can leave many thousands pending
+        Set<GameRecord> records = Collections.newSetFromMap(new IdentityHashMap<>());
+        records.addAll(savingRecords);
+        records.addAll(dirty);
+        return new ArrayList<>(records);
+    }
+
+    @Scheduled(fixedDelayString = "${simulation.persistence.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        // published before they leave dirty, so pendingRecords() never misses one.
+        // removed before saving: a change made while we save marks it dirty again for the next flush
+        List<GameRecord> records = new ArrayList<>(dirty);
+        savingRecords = records;
+        for (GameRecord record : records) dirty.remove(record);
+        // records first, the other rows need their game's id
+        boolean saved = saveInChunks(records, gameRecordRepository);
+        if (!saved) dirty.addAll(records);
+        savingRecords = List.of();
+        if (!saved) return;
+        checkpoints.flush();
+        historyChunks.flush();
+    }
+
+    private <T> boolean saveInChunks(List<T> items, JpaRepository<T, ?> repository) {
+        try {
+            for (int from = 0; from < items.size(); from += chunkSize) {
+                repository.saveAll(items.subList(from, Math.min(items.size(), from + chunkSize)));
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // the database being away must not lose data or reach a request, retry on the next flush
+            ConsoleLog.stdout().flushFailed(failedFlushes.incrementAndGet(), dirty.size() + items.size());
+            return false;
+        }
+    }
+
+    public int getPendingRecords() { return dirty.size(); }
+    public int getPendingCheckpoints() { return checkpoints.pending.get(); }
+    public int getPendingHistoryChunks() { return historyChunks.pending.get(); }
+    public long getFailedFlushes() { return failedFlushes.get(); }
+    public long getDroppedRows() { return checkpoints.dropped.get() + historyChunks.dropped.get(); }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,191 @@
+package com.gameoflife.session;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameoflife.GameCheckpoint;
+import com.gameoflife.persistence.GameRecordWriter;
+import com.service.ConsoleLog;
+
+import jakarta.annotation.PreDestroy;
+
+// all running simulations in this JVM, keyed by simulation id
+@Component
+public class SessionRegistry {
+    public static final String DEFAULT_SESSION = "default";
+
+    private final ConcurrentHashMap<String, SimulationSession> sessions = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final GameRecordWriter gameRecordWriter;
+    private final Semaphore sessionSlots; // one permit per session that may still be created
+    private final int maxCells;
+    private final int maxThreads;
+    private final long idleTimeoutMinutes;
+    private final Path eventLogDir; // null = event logging off
+    private final boolean logUnseeded; // seeded runs are always logged, the others only with this
+    private final Duration eventLogRetention;
+    private final Path snapshotDir;
+    private final int historyRingSize;
+
+    public SessionRegistry(ObjectMapper objectMapper,
+                           GameRecordWriter gameRecordWriter,
+                           @Value("${simulation.session.max-sessions:32}") int maxSessions,
+                           @Value("${simulation.session.max-cells:200000}") int maxCells,
+                           @Value("${simulation.session.max-threads:5000}") int maxThreads,
+                           @Value("${simulation.session.idle-timeout-minutes:30}") long idleTimeoutMinutes,
+                           @Value("${simulation.eventlog.enabled:true}") boolean eventLogEnabled,
+                           @Value("${simulation.eventlog.unseeded:false}") boolean logUnseeded,
+                           @Value("${simulation.eventlog.dir:}") String eventLogDir,
+                           @Value("${simulation.eventlog.retention-hours:24}") long eventLogRetentionHours,
+                           @Value("${simulation.snapshot.dir:}") String snapshotDir,
+                           @Value("${simulation.history.ring-size:4096}") int historyRingSize,
+                           @Value("${simulation.console-log.lines-per-second:1000}") int consoleLinesPerSecond,
+                           @Value("${simulation.console-log.food-drop-sampling:1}") int foodDropSampling) {
+        this.objectMapper = objectMapper;
+        this.gameRecordWriter = gameRecordWriter;
+        this.sessionSlots = new Semaphore(maxSessions);
+        this.maxCells = maxCells;
+        this.maxThreads = maxThreads;
+        this.idleTimeoutMinutes = idleTimeoutMinutes;
+        this.eventLogDir = eventLogEnabled ? createDir(eventLogDir, "gameoflife-events") : null;
+        this.logUnseeded = logUnseeded;
+        this.eventLogRetention = Duration.ofHours(eventLogRetentionHours);
+        this.snapshotDir = createDir(snapshotDir, "gameoflife-snapshots");
+        this.historyRingSize = historyRingSize;
+        // every session's pool prints its food lines through the shared console log
+        ConsoleLog.stdout().setRateLimit(consoleLinesPerSecond);
+        ConsoleLog.stdout().setSampling(ConsoleLog.FOOD_DROP, foodDropSampling);
+        sweepEventLogs();
+    }
+
+    private static Path createDir(String dir, String defaultName) {
+        Path path = dir.isBlank() ? Path.of(System.getProperty("java.io.tmpdir"), defaultName) : Path.of(dir);
+        try {
+            return Files.createDirectories(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create directory " + path, e);
+        }
+    }
+
+    public static String idOrDefault(String simId) {
+        return simId == null || simId.isBlank() ? DEFAULT_SESSION : simId;
+    }
+
+    // null when the session limit is reached
+    public SimulationSession getOrCreate(String simId) {
+        String id = idOrDefault(simId);
+        SimulationSession existing = sessions.get(id);
+        if (existing != null) return existing;
+        // the slot is taken before the session exists, so concurrent creates can't pass the limit together;
+        // it goes back when someone else created the same id first
+        if (!sessionSlots.tryAcquire()) return sessions.get(id);
+        SimulationSession[] created = new SimulationSession[1];
+        SimulationSession session = sessions.computeIfAbsent(id, key -> created[0] = new SimulationSession(key, maxCells,
+                maxThreads, eventLogDir, logUnseeded, snapshotDir, historyRingSize, gameRecordWriter, objectMapper));
+        if (created[0] == null) sessionSlots.release();
+        return session;
+    }
+
+    public SimulationSession find(String simId) {
+        return sessions.get(idOrDefault(simId));
+    }
+
+    // find/getOrCreate with a lease taken, so eviction can't reset the session while a request works on it.
+    // null like theirs; a non-null session has to be released
+    public SimulationSession acquire(String simId, boolean create) {
+        while (true) {
+            SimulationSession session = create ? getOrCreate(simId) : find(simId);
+            if (session == null || session.acquire()) return session;
+            // evicted between the lookup and the lease, the evictor is taking it out of the map right now
+            Thread.yield();
+        }
+    }
+
+    public SimulationSession create() {
+        String id = UUID.randomUUID().toString().substring(0, 8);
+        return getOrCreate(id);
+    }
+
+    public List<SimulationSession> all() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    // a session goes once nobody has looked at it (requests, status polls, the stream, metrics scrapes) for the
+    // idle timeout and it isn't running a live population any more. one a request holds a lease on stays
+    @Scheduled(fixedDelayString = "${simulation.session.eviction-interval-ms:60000}")
+    public void evictIdleSessions() {
+        for (SimulationSession session : sessions.values()) {
+            if (!session.isIdleFor(idleTimeoutMinutes, TimeUnit.MINUTES) || !session.isSettled()) continue;
+            if (!session.evict(idleTimeoutMinutes, TimeUnit.MINUTES)) continue;
+            sessions.remove(session.getId(), session);
+            sessionSlots.release();
+            session.reset();
+        }
+        sweepEventLogs();
+    }
+
+    // sessions delete their own logs, this catches the ones left behind by a JVM that didn't shut down cleanly.
+    // a live run writes to its log all the time and an idle one is evicted long before the retention is up
+    private void sweepEventLogs() {
+        if (eventLogDir == null) return;
+        Instant cutoff = Instant.now().minus(eventLogRetention);
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(eventLogDir, "*.evlog")) {
+            for (Path log : logs) {
+                if (Files.getLastModifiedTime(log).toInstant().isBefore(cutoff)) Files.deleteIfExists(log);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot clean up " + eventLogDir, e);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${simulation.history.sample-interval-ms:50}")
+    public void sampleHistory() {
+        for (SimulationSession session : sessions.values()) session.sampleHistory();
+    }
+
+    @Scheduled(fixedDelayString = "${simulation.history.persist-interval-ms:10000}")
+    public void persistHistory() {
+        for (SimulationSession session : sessions.values()) session.persistHistory();
+    }
+
+    // the session running this game, if it's still live
+    public SimulationSession findByGameId(Integer gameId) {
+        for (SimulationSession session : sessions.values()) {
+            if (gameId.equals(session.getCurrentGameId())) return session;
+        }
+        return null;
+    }
+
+    // the checkpoint and the refreshed record land in the same write-behind flush
+    @Scheduled(fixedDelayString = "${simulation.persistence.checkpoint-interval-ms:10000}")
+    public void checkpointRunningSessions() {
+        for (SimulationSession session : sessions.values()) {
+            GameCheckpoint checkpoint = session.checkpoint();
+            if (checkpoint == null) continue;
+            gameRecordWriter.enqueue(session.refreshGameRecord());
+            gameRecordWriter.enqueue(checkpoint);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (SimulationSession session : sessions.values()) session.reset();
+        sessions.clear();
+    }
+}
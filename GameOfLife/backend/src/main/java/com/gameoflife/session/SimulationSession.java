@@ -0,0 +1,408 @@
+package com.gameoflife.session;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameoflife.GameCheckpoint;
+import com.gameoflife.GameRecord;
+import com.gameoflife.HistoryChunk;
+import com.gameoflife.history.HistorySamples;
+import com.gameoflife.history.PopulationHistory;
+import com.gameoflife.persistence.GameRecordWriter;
+import com.gameoflife.status.StatusFrame;
+import com.gameoflife.status.StatusFrameProducer;
+import com.model.AsexualCell;
+import com.model.Cell;
+import com.model.CellParameters;
+import com.model.SexualCell;
+import com.service.CellManager;
+import com.service.CellSnapshot;
+import com.service.EventLogReplayer;
+import com.service.ExecutionMode;
+import com.service.ResourcePool;
+import com.service.SimulationEventLog;
+import com.service.SpatialWorld;
+
+// one independent simulation: its own manager, pool and game record.
+// lifecycle changes are serialized on the session, reads go through volatile fields without locking
+public class SimulationSession {
+    public enum State { IDLE, RUNNING, PAUSED }
+
+    private final String id;
+    private final int maxCells;
+    private final int maxThreads;
+    private final Path eventLogDir;
+    private final boolean logUnseeded;
+    private final Path snapshotDir;
+    private final int historyRingSize;
+    private final GameRecordWriter gameRecordWriter;
+    private final ObjectMapper objectMapper;
+
+    private volatile State state = State.IDLE;
+    private volatile CellManager manager;
+    private volatile ResourcePool resourcePool;
+    private volatile StatusFrameProducer statusFrames;
+    private volatile SimulationEventLog eventLog;
+    private volatile GameRecord currentGame;
+    private volatile LocalDateTime startTime;
+    private volatile long startNanos;
+    private volatile PopulationHistory history;
+    private final AtomicInteger totalCellsCreated = new AtomicInteger(0);
+    // cumulative counters at the previous checkpoint, guarded by the session lock
+    private int lastCreated, lastDeaths, lastDivisions, lastReproductions;
+    private volatile long lastAccessNanos = System.nanoTime();
+    // requests working on this session right now, -1 once evicted: eviction only takes one nobody holds
+    private final AtomicInteger leases = new AtomicInteger(0);
+    private volatile long lastTeardownMs = 0; // how long the last killAll/stop took
+
+    public SimulationSession(String id, int maxCells, int maxThreads, Path eventLogDir, boolean logUnseeded,
+                             Path snapshotDir, int historyRingSize, GameRecordWriter gameRecordWriter, ObjectMapper objectMapper) {
+        this.id = id;
+        this.maxCells = maxCells;
+        this.maxThreads = maxThreads;
+        this.eventLogDir = eventLogDir;
+        this.logUnseeded = logUnseeded;
+        this.snapshotDir = snapshotDir;
+        this.historyRingSize = historyRingSize;
+        this.gameRecordWriter = gameRecordWriter;
+        this.objectMapper = objectMapper;
+    }
+
+    // a seed makes the run deterministic: event engine (unless parallel, which is deterministic too), one food stripe
+    // (one per region when spatial) and a seeded RNG for food drops. spatial runs place cells on a grid where they
+    // only feed and mate with their neighbours; the parallel engine steps those regions, so it is always spatial
+    public synchronized String start(int initialFood, ExecutionMode mode, Long seed, boolean spatial) {
+        touch();
+        if (manager != null && state == State.PAUSED) {
+            state = State.RUNNING;
+            manager.setPaused(false);
+            statusFrames.invalidate();
+            return "resumed";
+        }
+
+        stopManager();
+        discardEventLog();
+
+        SplittableRandom random = seed != null ? new SplittableRandom(seed) : null;
+        boolean parallel = mode == ExecutionMode.PARALLEL;
+        SpatialWorld world = spatial || parallel ? new SpatialWorld(SpatialWorld.DEFAULT_SIDE) : null;
+        ResourcePool pool;
+        if (world != null) pool = new ResourcePool(initialFood, world, random);
+        else pool = random != null ? new ResourcePool(initialFood, 1, random) : new ResourcePool(initialFood);
+        CellManager m = new CellManager(pool, seed != null && !parallel ? ExecutionMode.EVENT : mode, CellParameters.DEFAULTS, world);
+        m.setLimits(maxCells, maxThreads);
+        if (eventLogDir != null && (seed != null || logUnseeded)) {
+            eventLog = new SimulationEventLog(eventLogDir.resolve(id + "-" + System.currentTimeMillis() + ".evlog"), seed, m::now);
+            m.setEventLog(eventLog);
+            m.recordEvent(SimulationEventLog.FOOD_ADDED, 0, initialFood);
+        }
+
+        m.addCell(new AsexualCell(m.nextCellId(), m, pool));
+        m.addCell(new AsexualCell(m.nextCellId(), m, pool));
+        m.addCell(new SexualCell(m.nextCellId(), m, pool));
+        m.addCell(new SexualCell(m.nextCellId(), m, pool));
+
+        begin(m, pool);
+        totalCellsCreated.set(4);
+        lastCreated = lastDeaths = lastDivisions = lastReproductions = 0;
+        return "started";
+    }
+
+    private void begin(CellManager m, ResourcePool pool) {
+        resourcePool = pool;
+        manager = m;
+        statusFrames = new StatusFrameProducer(m, pool, objectMapper);
+        startTime = LocalDateTime.now();
+        startNanos = System.nanoTime();
+        currentGame = new GameRecord();
+        history = new PopulationHistory(historyRingSize);
+        state = State.RUNNING;
+    }
+
+    // saves the running (or paused) simulation as <name>.snap, null when there is nothing to save
+    public synchronized CellSnapshot.Summary saveSnapshot(String name) {
+        touch();
+        if (manager == null) return null;
+        return CellSnapshot.write(manager, resourcePool, snapshotFile(name));
+    }
+
+    // replaces whatever runs here with the snapshot's population, as a new game. the event log and the seeded RNG
+    // don't carry over, a restored run isn't recorded for replay
+    public synchronized CellSnapshot.Restored restoreSnapshot(String name) {
+        touch();
+        Path file = snapshotFile(name);
+        if (!Files.exists(file)) return null;
+        // a corrupt file fails here, before the current run is touched
+        CellSnapshot.Image image = CellSnapshot.read(file);
+        // the old population is gone before the new one exists, the two never run side by side
+        stopManager();
+        discardEventLog();
+        CellSnapshot.Restored restored = image.restore(maxCells, maxThreads);
+        CellManager m = restored.manager();
+        begin(m, restored.pool());
+        totalCellsCreated.set(m.getTotalCellsCreated());
+        // the game's first checkpoint interval starts from the restored counters, not from zero
+        lastCreated = m.getTotalCellsCreated();
+        lastDeaths = lastCreated - m.getAliveCellsCount();
+        lastDivisions = m.getTotalDivisions();
+        lastReproductions = m.getTotalReproductions();
+        m.setPaused(false);
+        return restored;
+    }
+
+    // names come from the request, only plain file names stay inside the snapshot directory
+    private Path snapshotFile(String name) {
+        if (!name.matches("[A-Za-z0-9_-]{1,64}")) throw new IllegalArgumentException("Invalid snapshot name: " + name);
+        return snapshotDir.resolve(name + ".snap");
+    }
+
+    // returns the new paused flag, or null when nothing is running
+    public synchronized Boolean togglePause() {
+        touch();
+        if (manager == null || state == State.IDLE) return null;
+        boolean paused = state != State.PAUSED;
+        state = paused ? State.PAUSED : State.RUNNING;
+        manager.setPaused(paused);
+        statusFrames.invalidate();
+        return paused;
+    }
+
+    public boolean addCell(String type) {
+        touch();
+        CellManager m = manager;
+        ResourcePool pool = resourcePool;
+        if (m == null) return false;
+
+        int newId = m.nextCellId();
+        Cell newCell = type.equalsIgnoreCase("sexual")
+                ? new SexualCell(newId, m, pool)
+                : new AsexualCell(newId, m, pool);
+        if (!m.addCell(newCell)) return false;
+        totalCellsCreated.incrementAndGet();
+        return true;
+    }
+
+    // returns the amount added, or -1 when nothing is running
+    public int addFood() {
+        touch();
+        CellManager m = manager;
+        if (m == null) return -1;
+        int amount = Math.max(5, m.getAliveCellsCount() + 5);
+        m.addFood(amount);
+        return amount;
+    }
+
+    public boolean setSpeed(String action) {
+        touch();
+        CellManager m = manager;
+        if (m == null) return false;
+        m.setSpeed(action);
+        return true;
+    }
+
+    public synchronized boolean killAll() {
+        touch();
+        if (manager == null) return false;
+        lastTeardownMs = manager.killAll();
+        return true;
+    }
+
+    public synchronized void reset() {
+        stopManager();
+        discardEventLog();
+        state = State.IDLE;
+        manager = null;
+        resourcePool = null;
+        statusFrames = null;
+    }
+
+    private void stopManager() {
+        // final totals and the last samples of the run, before stopAll resets the counters
+        gameRecordWriter.enqueue(refreshGameRecord());
+        persistHistory();
+        if (manager != null) lastTeardownMs = manager.stopAll();
+        if (eventLog != null) eventLog.close();
+    }
+
+    // a stopped run stays replayable until another run (or nothing, after a reset) takes its place
+    private void discardEventLog() {
+        SimulationEventLog log = eventLog;
+        eventLog = null;
+        if (log != null) log.delete();
+    }
+
+    // one population sample, called every status tick by the registry
+    public void sampleHistory() {
+        CellManager m = manager;
+        ResourcePool pool = resourcePool;
+        PopulationHistory h = history;
+        if (m == null || h == null || state != State.RUNNING) return;
+        int[] values = new int[HistorySamples.METRICS];
+        values[HistorySamples.ASEXUAL] = m.getAliveAsexualCount();
+        values[HistorySamples.SEXUAL] = m.getAliveSexualCount();
+        values[HistorySamples.FOOD] = pool.getAvailableFood();
+        values[HistorySamples.DIVISIONS] = m.getTotalDivisions();
+        values[HistorySamples.REPRODUCTIONS] = m.getTotalReproductions();
+        values[HistorySamples.STARVATIONS] = m.getTotalStarvations();
+        h.sample(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), values);
+    }
+
+    // hands everything sampled since the last call to the writer as one packed row. drain and hand-off happen
+    // under the session lock, so unpersistedHistory() sees every sample either in the ring or at the writer
+    public synchronized void persistHistory() {
+        PopulationHistory h = history;
+        HistorySamples samples = h != null ? h.drain() : null;
+        if (samples == null || currentGame == null) return;
+        HistoryChunk chunk = new HistoryChunk();
+        chunk.setGame(currentGame);
+        chunk.setSimId(id);
+        chunk.setFirstMs(samples.firstTime());
+        chunk.setLastMs(samples.lastTime());
+        chunk.setSampleCount(samples.size());
+        chunk.setSamples(samples.encode());
+        gameRecordWriter.enqueue(chunk);
+    }
+
+    // samples of the current run that may not be in the database yet: the writer's queued chunks, then the ring.
+    // read this before the database, a sample can only move from here to there
+    public synchronized HistorySamples unpersistedHistory() {
+        PopulationHistory h = history;
+        GameRecord game = currentGame;
+        if (h == null || game == null) return null;
+        HistorySamples out = new HistorySamples(1024);
+        if (game.getId() != null) {
+            for (HistoryChunk chunk : gameRecordWriter.unsavedHistory(game.getId())) HistorySamples.decode(chunk.getSamples(), out);
+        }
+        HistorySamples pending = h.pending();
+        if (pending != null) out.addAll(pending);
+        return out;
+    }
+
+    public Integer getCurrentGameId() {
+        GameRecord game = currentGame;
+        return game != null ? game.getId() : null;
+    }
+
+    // the live record is the instance the writer keeps saving, a summary set only on a copy would be overwritten
+    public synchronized GameRecord attachSummary(Integer gameId, String summary) {
+        if (currentGame == null || gameId == null || !gameId.equals(currentGame.getId())) return null;
+        currentGame.setSummary(summary);
+        return currentGame;
+    }
+
+    // rebuilds the current run as it was at logical time at, null when the run isn't being recorded
+    public EventLogReplayer.ReplayState replay(long at) {
+        touch();
+        SimulationEventLog log = eventLog;
+        if (log == null) return null;
+        log.flush();
+        return EventLogReplayer.replay(log.getPath(), at);
+    }
+
+    // copies the live counters into the current game record, null if no game was started
+    public synchronized GameRecord refreshGameRecord() {
+        if (currentGame == null || manager == null) return null;
+
+        long duration = Duration.between(startTime, LocalDateTime.now()).getSeconds();
+        currentGame.setDurationSeconds((int) duration);
+        currentGame.setTotalCells(totalCellsCreated.get());
+        currentGame.setAliveSexualCells(manager.getAliveSexualCount());
+        currentGame.setAliveAsexualCells(manager.getAliveAsexualCount());
+
+        currentGame.setNrReproductions(manager.getTotalReproductions()); // Sexual
+        currentGame.setNrDivisions(manager.getTotalDivisions());         // Asexual
+        return currentGame;
+    }
+
+    // one time-series point for the running game, null when idle or paused (nothing changes)
+    public synchronized GameCheckpoint checkpoint() {
+        CellManager m = manager;
+        if (m == null || currentGame == null || state != State.RUNNING) return null;
+
+        int alive = m.getAliveCellsCount();
+        int created = m.getTotalCellsCreated();
+        int deaths = created - alive;
+        int divisions = m.getTotalDivisions();
+        int reproductions = m.getTotalReproductions();
+
+        GameCheckpoint checkpoint = new GameCheckpoint();
+        checkpoint.setGame(currentGame);
+        checkpoint.setSimId(id);
+        checkpoint.setElapsedSeconds((int) Duration.between(startTime, LocalDateTime.now()).getSeconds());
+        checkpoint.setAliveAsexualCells(m.getAliveAsexualCount());
+        checkpoint.setAliveSexualCells(m.getAliveSexualCount());
+        checkpoint.setAvailableFood(resourcePool.getAvailableFood());
+        // killAll resets the manager's counters, an interval across it counts from zero
+        checkpoint.setBirths(Math.max(0, created - lastCreated));
+        checkpoint.setDeaths(Math.max(0, deaths - lastDeaths));
+        checkpoint.setDivisions(Math.max(0, divisions - lastDivisions));
+        checkpoint.setReproductions(Math.max(0, reproductions - lastReproductions));
+
+        lastCreated = created;
+        lastDeaths = deaths;
+        lastDivisions = divisions;
+        lastReproductions = reproductions;
+        return checkpoint;
+    }
+
+    public StatusFrame statusFrame() {
+        touch();
+        StatusFrameProducer frames = statusFrames;
+        State s = state;
+        if (frames == null) return StatusFrameProducer.idleFrame();
+        return frames.currentFrame(s != State.IDLE, s == State.PAUSED);
+    }
+
+    public StatusFrameProducer statusFrames() { return statusFrames; }
+
+    public void touch() { lastAccessNanos = System.nanoTime(); }
+
+    public boolean isIdleFor(long timeout, TimeUnit unit) {
+        return System.nanoTime() - lastAccessNanos > unit.toNanos(timeout);
+    }
+
+    // nothing left that anyone could miss: never started, paused, or every cell is dead
+    public boolean isSettled() {
+        State s = state;
+        return s != State.RUNNING || getAliveCount() == 0;
+    }
+
+    // false once the session was evicted, the caller looks it up again
+    boolean acquire() {
+        while (true) {
+            int n = leases.get();
+            if (n < 0) return false;
+            if (leases.compareAndSet(n, n + 1)) {
+                touch();
+                return true;
+            }
+        }
+    }
+
+    public void release() { leases.decrementAndGet(); }
+
+    // succeeds only while no request holds a lease, after that acquire() fails for good. checked again once
+    // nobody can take a lease any more, a request may have touched it since the caller looked
+    boolean evict(long idleTimeout, TimeUnit unit) {
+        if (!leases.compareAndSet(0, -1)) return false;
+        if (isIdleFor(idleTimeout, unit) && isSettled()) return true;
+        leases.set(0);
+        return false;
+    }
+
+    public String getId() { return id; }
+    public State getState() { return state; }
+    public long getLastTeardownMs() { return lastTeardownMs; }
+    public CellManager getManager() { return manager; }
+    public ResourcePool getResourcePool() { return resourcePool; }
+    public int getAliveCount() {
+        CellManager m = manager;
+        return m != null ? m.getAliveCellsCount() : 0;
+    }
+}
@@ -0,0 +1,135 @@
+package com.gameoflife.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.service.SpatialWorld;
+
+// compact alternative to a frame's JSON for clients that send Accept: application/x-gameoflife-frame.
+// every integer is an unsigned LEB128 varint unless said otherwise:
+//   'G' 'F' 1                      magic and format version (bytes)
+//   flags                          bit 0 running, bit 1 paused, bit 2 food by region (byte)
+//   tick, availableFood, aliveCount
+//   n, then n cells sorted by id:  id minus the previous cell's id (the first one minus 0),
+//                                  bits (byte: 0 asexual, 1 alive, 2 hungry, 3 reproducing),
+//                                  x and y quantized to 0..65535 over 0..100 (little-endian u16 each)
+//   food, without regions:         seed, count; spot i comes from new java.util.Random(i * seed):
+//                                  x = nextInt(90) + 5, then y = nextInt(90) + 5
+//   food, by region:               regions, then a count per region; spot i of region r is
+//                                  SpatialWorld.foodX/foodY(r, i)
+// about 7 bytes a cell before compression, the JSON spends over 100
+public final class StatusBinaryEncoder {
+    public static final String MEDIA_TYPE = "application/x-gameoflife-frame";
+    private static final byte VERSION = 1;
+    private static final double QUANTUM = 65535 / SpatialWorld.SIZE;
+
+    private StatusBinaryEncoder() {}
+
+    // true when the Accept header names the binary type with a non-zero q
+    public static boolean accepts(String accept) {
+        return accepted(accept, MEDIA_TYPE);
+    }
+
+    // gzip, then deflate, then identity (null), in that order of preference
+    public static String contentEncoding(String acceptEncoding) {
+        if (accepted(acceptEncoding, "gzip")) return "gzip";
+        if (accepted(acceptEncoding, "deflate")) return "deflate";
+        return null;
+    }
+
+    private static boolean accepted(String header, String token) {
+        if (header == null) return false;
+        for (String range : header.split(",")) {
+            String[] parts = range.split(";");
+            if (!parts[0].trim().equalsIgnoreCase(token)) continue;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public static byte[] encode(StatusFrame frame, int foodSeed) {
+        List<StatusFrame.CellState> cells = frame.cells();
+        int[] regionFood = frame.regionFood();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + cells.size() * 8);
+        out.write('G');
+        out.write('F');
+        out.write(VERSION);
+        out.write((frame.running() ? 1 : 0) | (frame.paused() ? 2 : 0) | (regionFood != null ? 4 : 0));
+        writeVarint(out, frame.tick());
+        writeVarint(out, frame.availableFood());
+        writeVarint(out, frame.aliveCount());
+
+        writeVarint(out, cells.size());
+        int previousId = 0;
+        for (StatusFrame.CellState c : cells) {
+            writeVarint(out, c.id() - previousId);
+            previousId = c.id();
+            out.write((c.asexual() ? 1 : 0) | 2 | (c.hungry() ? 4 : 0) | (c.reproducing() ? 8 : 0));
+            writeU16(out, quantize(c.x()));
+            writeU16(out, quantize(c.y()));
+        }
+
+        if (regionFood != null) {
+            writeVarint(out, regionFood.length);
+            for (int count : regionFood) writeVarint(out, count);
+        } else {
+            writeVarint(out, foodSeed);
+            writeVarint(out, Math.min(frame.availableFood(), StatusFrameProducer.MAX_RENDERED_FOOD));
+        }
+        return out.toByteArray();
+    }
+
+    // contentEncoding as returned by contentEncoding(), null = as is. quantized positions are close to random bytes,
+    // a higher level buys a percent or two for twice the time, so it's the fastest one in one pass over the frame
+    public static byte[] compress(byte[] raw, String contentEncoding) {
+        if (contentEncoding == null) return raw;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length + 64);
+        int buffer = Math.max(512, raw.length);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream z = contentEncoding.equals("gzip")
+                ? new FastGzip(out, buffer)
+                : new DeflaterOutputStream(out, deflater, buffer)) {
+            z.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end(); // a deflater handed in isn't ended by close()
+        }
+        return out.toByteArray();
+    }
+
+    // GZIPOutputStream only takes the default level, its deflater can still be changed before anything is written
+    private static final class FastGzip extends GZIPOutputStream {
+        FastGzip(OutputStream out, int buffer) throws IOException {
+            super(out, buffer);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    private static int quantize(double v) {
+        return (int) Math.round(Math.max(0, Math.min(SpatialWorld.SIZE, v)) * QUANTUM);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static void writeU16(ByteArrayOutputStream out, int v) {
+        out.write(v & 0xFF);
+        out.write(v >>> 8);
+    }
+}
@@ -0,0 +1,123 @@
+package com.gameoflife.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// per-client encoder for the status stream: a keyframe first, then only what changed since the last frame
+// this client actually received. in a spatial world cells really move, so a delta lists the ones that did
+// under "moved" with their new x/y; otherwise positions are not part of deltas, clients derive them from id
+// and tick with the same sin/cos formula StatusFrameProducer uses
+public class StatusDeltaEncoder {
+    public static final int KEYFRAME_EVERY = 40;
+
+    public record Encoded(String event, long version, byte[] json) {}
+
+    private final ObjectMapper objectMapper;
+    private StatusFrameProducer lastSource;
+    private StatusFrame last;
+    private int sinceKeyframe = 0;
+
+    public StatusDeltaEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // returns null when the frame is the same one this client already has
+    public Encoded next(StatusFrameProducer source, StatusFrame frame) {
+        boolean keyframe = last == null || source != lastSource || ++sinceKeyframe >= KEYFRAME_EVERY;
+        if (!keyframe && frame.version() == last.version()) return null;
+
+        StatusFrame previous = last;
+        last = frame;
+        lastSource = source;
+        if (keyframe) {
+            sinceKeyframe = 0;
+            return new Encoded("keyframe", frame.version(), frame.json());
+        }
+        return new Encoded("delta", frame.version(), writeDelta(previous, frame));
+    }
+
+    private byte[] writeDelta(StatusFrame from, StatusFrame to) {
+        List<StatusFrame.CellState> a = from.cells();
+        List<StatusFrame.CellState> b = to.cells();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeNumberField("tick", to.tick());
+            gen.writeBooleanField("running", to.running());
+            gen.writeBooleanField("paused", to.paused());
+            gen.writeNumberField("availableFood", to.availableFood());
+            gen.writeNumberField("aliveCount", to.aliveCount());
+
+            // both lists are sorted by id, so one merge pass finds births, deaths and flips
+            gen.writeArrayFieldStart("births");
+            for (int i = 0, j = 0; j < b.size(); ) {
+                if (i < a.size() && a.get(i).id() < b.get(j).id()) { i++; continue; }
+                if (i < a.size() && a.get(i).id() == b.get(j).id()) { i++; j++; continue; }
+                StatusFrame.CellState c = b.get(j++);
+                gen.writeStartObject();
+                gen.writeNumberField("id", c.id());
+                gen.writeStringField("type", c.asexual() ? "Asexual" : "Sexual");
+                gen.writeNumberField("x", c.x());
+                gen.writeNumberField("y", c.y());
+                gen.writeBooleanField("isHungry", c.hungry());
+                gen.writeBooleanField("isReproducing", c.reproducing());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("deaths");
+            for (int i = 0, j = 0; i < a.size(); ) {
+                if (j < b.size() && b.get(j).id() < a.get(i).id()) { j++; continue; }
+                if (j < b.size() && b.get(j).id() == a.get(i).id()) { i++; j++; continue; }
+                gen.writeNumber(a.get(i++).id());
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("changes");
+            for (int i = 0, j = 0; i < a.size() && j < b.size(); ) {
+                StatusFrame.CellState x = a.get(i), y = b.get(j);
+                if (x.id() < y.id()) { i++; continue; }
+                if (y.id() < x.id()) { j++; continue; }
+                if (x.hungry() != y.hungry() || x.reproducing() != y.reproducing()) {
+                    gen.writeStartObject();
+                    gen.writeNumberField("id", y.id());
+                    gen.writeBooleanField("isHungry", y.hungry());
+                    gen.writeBooleanField("isReproducing", y.reproducing());
+                    gen.writeEndObject();
+                }
+                i++;
+                j++;
+            }
+            gen.writeEndArray();
+
+            // regionFood is only there for a spatial world
+            if (to.regionFood() != null) {
+                gen.writeArrayFieldStart("moved");
+                for (int i = 0, j = 0; i < a.size() && j < b.size(); ) {
+                    StatusFrame.CellState x = a.get(i), y = b.get(j);
+                    if (x.id() < y.id()) { i++; continue; }
+                    if (y.id() < x.id()) { j++; continue; }
+                    if (x.x() != y.x() || x.y() != y.y()) {
+                        gen.writeStartObject();
+                        gen.writeNumberField("id", y.id());
+                        gen.writeNumberField("x", y.x());
+                        gen.writeNumberField("y", y.y());
+                        gen.writeEndObject();
+                    }
+                    i++;
+                    j++;
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
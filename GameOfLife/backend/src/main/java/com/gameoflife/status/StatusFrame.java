@@ -0,0 +1,20 @@
+package com.gameoflife.status;
+
+import java.util.List;
+
+// one immutable view of the simulation, serialized once and shared by every poller
+public record StatusFrame(
+        long version,
+        String etag,
+        int tick,
+        boolean running,
+        boolean paused,
+        List<CellState> cells,
+        int availableFood,
+        int aliveCount,
+        int[] regionFood, // food drawn in each region of a spatial world, null without one
+        byte[] json
+) {
+    // cells are sorted by id
+    public record CellState(int id, boolean asexual, boolean hungry, boolean reproducing, double x, double y) {}
+}
@@ -0,0 +1,254 @@
+package com.gameoflife.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.service.CellManager;
+import com.service.CellStore;
+import com.service.ResourcePool;
+import com.service.SimulationEvents;
+import com.service.SpatialWorld;
+
+// builds at most one status frame per tick no matter how many clients poll
+public class StatusFrameProducer {
+    public static final long FRAME_INTERVAL_MS = 50;
+    private static final long FRAME_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(FRAME_INTERVAL_MS);
+    public static final int MAX_RENDERED_FOOD = 200;
+
+    // food is drawn at fixed pseudo-random spots, only the count changes
+    static final int FOOD_SEED = 5555;
+    private static final int[] FOOD_X = new int[MAX_RENDERED_FOOD];
+    private static final int[] FOOD_Y = new int[MAX_RENDERED_FOOD];
+    static {
+        for (int i = 0; i < MAX_RENDERED_FOOD; i++) {
+            Random r = new Random(i * (long) FOOD_SEED);
+            FOOD_X[i] = r.nextInt(90) + 5;
+            FOOD_Y[i] = r.nextInt(90) + 5;
+        }
+    }
+
+    private static final StatusFrame IDLE_FRAME = new StatusFrame(0, "\"idle\"", 0, false, false, List.of(), 0, 0, null,
+            "{\"running\":false,\"activeCells\":[],\"food\":[],\"aliveCount\":0}".getBytes(StandardCharsets.UTF_8));
+
+    private final CellManager manager;
+    private final ResourcePool resourcePool;
+    private final ObjectMapper objectMapper;
+    private final String epoch = Long.toHexString(System.nanoTime());
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private volatile StatusFrame current;
+    private volatile Binary binary; // of the latest frame a client asked the binary encoding for
+    private volatile long builtAt;
+    private int movementTick = 0;
+    private long version = 0;
+
+    public StatusFrameProducer(CellManager manager, ResourcePool resourcePool, ObjectMapper objectMapper) {
+        this.manager = manager;
+        this.resourcePool = resourcePool;
+        this.objectMapper = objectMapper;
+    }
+
+    public StatusFrame currentFrame(boolean running, boolean paused) {
+        StatusFrame frame = current;
+        if (frame != null && System.nanoTime() - builtAt < FRAME_INTERVAL_NANOS) return frame;
+
+        // someone else is already building this tick, serve the previous frame instead of queueing up
+        if (frame != null && !buildLock.tryLock()) return frame;
+        if (frame == null) buildLock.lock();
+        try {
+            if (current != frame && System.nanoTime() - builtAt < FRAME_INTERVAL_NANOS) return current;
+            current = build(running, paused, current);
+            builtAt = System.nanoTime();
+            return current;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    // forces the next poll to rebuild, e.g. right after pause/resume
+    public void invalidate() {
+        builtAt = 0;
+    }
+
+    private StatusFrame build(boolean running, boolean paused, StatusFrame previous) {
+        SimulationEvents.StatusBuild event = new SimulationEvents.StatusBuild();
+        event.begin();
+        long start = System.nanoTime();
+        StatusFrame frame = buildFrame(running, paused, previous);
+        manager.getMetrics().statusBuilt(System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.cells = frame.aliveCount();
+            event.commit();
+        }
+        return frame;
+    }
+
+    private StatusFrame buildFrame(boolean running, boolean paused, StatusFrame previous) {
+        if (!paused) movementTick++;
+
+        // one sequential pass over the cell store's columns, no Cell objects or monitors involved
+        int tick = movementTick;
+        CellStore store = manager.getCellStore();
+        SpatialWorld world = manager.getWorld();
+        List<StatusFrame.CellState> cells = new ArrayList<>(manager.getAliveCellsCount() + 16);
+        store.forEachAlive((slot, id, type, meals, flags) -> {
+            double x, y;
+            if (world != null) {
+                // real positions, a cell placed but not yet registered has none
+                x = store.x(slot);
+                y = store.y(slot);
+                if (Double.isNaN(x)) return;
+            } else {
+                double seed = id * 11.0;
+                x = 45.0 + 42.0 * Math.sin((tick * 0.05) + seed);
+                y = 45.0 + 42.0 * Math.cos((tick * 0.04) + (seed * 1.5));
+            }
+            cells.add(new StatusFrame.CellState(
+                    id,
+                    type == CellStore.ASEXUAL,
+                    (flags & CellStore.HUNGRY) != 0,
+                    (flags & CellStore.REPRODUCING) != 0,
+                    Math.max(2, Math.min(95, x)),
+                    Math.max(2, Math.min(95, y))));
+        });
+        cells.sort(Comparator.comparingInt(StatusFrame.CellState::id));
+
+        int foodCount = resourcePool.getAvailableFood();
+        int aliveCount = manager.getAliveCellsCount();
+        int[] regionFood = world != null ? regionFood(world) : null;
+        double[] foodSpots = world != null ? foodSpots(world, regionFood) : null;
+        byte[] json = writeJson(movementTick, running, paused, cells, foodCount, aliveCount, foodSpots);
+
+        // identical content keeps the old etag so pollers get a 304
+        if (previous != null && Arrays.equals(previous.json(), json)) {
+            return new StatusFrame(previous.version(), previous.etag(), movementTick, running, paused,
+                    cells, foodCount, aliveCount, regionFood, previous.json());
+        }
+        long v = ++version;
+        return new StatusFrame(v, "\"" + epoch + "-" + v + "\"", movementTick, running, paused,
+                cells, foodCount, aliveCount, regionFood, json);
+    }
+
+    // each region's food is drawn inside that region, an even share of MAX_RENDERED_FOOD per region
+    private int[] regionFood(SpatialWorld world) {
+        int perRegion = Math.max(1, MAX_RENDERED_FOOD / world.regions());
+        int[] counts = new int[world.regions()];
+        for (int r = 0; r < counts.length; r++) counts[r] = Math.min(resourcePool.getFoodIn(r), perRegion);
+        return counts;
+    }
+
+    // x, y pairs
+    private static double[] foodSpots(SpatialWorld world, int[] regionFood) {
+        int total = 0;
+        for (int count : regionFood) total += count;
+        double[] spots = new double[2 * total];
+        int n = 0;
+        for (int r = 0; r < regionFood.length; r++) {
+            for (int i = 0; i < regionFood[r]; i++) {
+                spots[n++] = world.foodX(r, i);
+                spots[n++] = world.foodY(r, i);
+            }
+        }
+        return spots;
+    }
+
+    // one frame's binary encoding, each compression made on first request and shared by every poller after
+    private static final class Binary {
+        final long version;
+        final byte[] raw;
+        volatile byte[] gzip;
+        volatile byte[] deflate;
+
+        Binary(long version, byte[] raw) {
+            this.version = version;
+            this.raw = raw;
+        }
+    }
+
+    // the frame as StatusBinaryEncoder writes it, compressed with contentEncoding ("gzip", "deflate" or null).
+    // a frame's version names its content, so encodings are cached by version
+    public byte[] binary(StatusFrame frame, String contentEncoding) {
+        Binary b = binary;
+        if (b == null || b.version != frame.version()) {
+            b = new Binary(frame.version(), StatusBinaryEncoder.encode(frame, FOOD_SEED));
+            binary = b;
+        }
+        if (contentEncoding == null) return b.raw;
+        boolean gzip = contentEncoding.equals("gzip");
+        byte[] compressed = gzip ? b.gzip : b.deflate;
+        if (compressed == null) {
+            // two pollers racing here both compress, one result wins, the bytes are the same
+            compressed = StatusBinaryEncoder.compress(b.raw, contentEncoding);
+            if (gzip) b.gzip = compressed;
+            else b.deflate = compressed;
+        }
+        return compressed;
+    }
+
+    public static byte[] idleBinary(String contentEncoding) {
+        return StatusBinaryEncoder.compress(StatusBinaryEncoder.encode(IDLE_FRAME, FOOD_SEED), contentEncoding);
+    }
+
+    private byte[] writeJson(int tick, boolean running, boolean paused, List<StatusFrame.CellState> cells, int foodCount,
+                             int aliveCount, double[] foodSpots) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + cells.size() * 128);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeNumberField("tick", tick);
+            gen.writeBooleanField("running", running);
+            gen.writeBooleanField("paused", paused);
+            gen.writeArrayFieldStart("activeCells");
+            for (StatusFrame.CellState c : cells) {
+                gen.writeStartObject();
+                gen.writeNumberField("id", c.id());
+                gen.writeStringField("type", c.asexual() ? "Asexual" : "Sexual");
+                gen.writeNumberField("x", c.x());
+                gen.writeNumberField("y", c.y());
+                gen.writeBooleanField("alive", true);
+                gen.writeBooleanField("isHungry", c.hungry());
+                gen.writeBooleanField("isReproducing", c.reproducing());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("food");
+            if (foodSpots != null) {
+                for (int i = 0; i < foodSpots.length; i += 2) {
+                    gen.writeStartObject();
+                    gen.writeNumberField("x", foodSpots[i]);
+                    gen.writeNumberField("y", foodSpots[i + 1]);
+                    gen.writeEndObject();
+                }
+            } else {
+                int renderFood = Math.min(foodCount, MAX_RENDERED_FOOD);
+                for (int i = 0; i < renderFood; i++) {
+                    gen.writeStartObject();
+                    gen.writeNumberField("x", FOOD_X[i]);
+                    gen.writeNumberField("y", FOOD_Y[i]);
+                    gen.writeEndObject();
+                }
+            }
+            gen.writeEndArray();
+            gen.writeNumberField("availableFood", foodCount);
+            gen.writeNumberField("aliveCount", aliveCount);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static StatusFrame idleFrame() {
+        return IDLE_FRAME;
+    }
+}
@@ -18,8 +18,13 @@ public class AsexualCell extends Cell {
         manager.reproduce(this, null);
         
         //parent dies
-        synchronized (this) {
-            isAlive = false;
-        }
+        markDead();
+    }
+
+    @Override
+    protected long stepReproduction(long now) {
+        manager.reproduce(this, null);
+        markDead();
+        return -1;
     }
 }
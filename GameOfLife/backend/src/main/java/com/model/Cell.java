@@ -1,40 +1,56 @@
 package com.model;
 
 import com.service.CellManager;
+import com.service.CellTimers;
+import com.service.CellStore;
 import com.service.ResourcePool;
+import com.service.SimulationEventLog;
+import com.service.SimulationEvents;
 
 public abstract class Cell implements Runnable {
     public int id;
-    protected int mealsEaten;
-    protected boolean isAlive;
-    protected boolean isHungry;
-    protected boolean wantsToReproduce;
+    // meals, alive/hungry/reproducing flags and next wake-up live in the manager's CellStore, at this slot
+    protected final CellStore store;
+    protected final int slot;
+    private volatile boolean released = false;
     protected CellManager manager;
     protected ResourcePool resourcePool;
+    protected final CellParameters params;
     
 
+    // defaults, see CellParameters
     protected static final int BASE_FULL_TIME = 5000;    
     
     protected static final int BASE_STARVE_TIME = 4000;  // slightly longer starve time too
     protected static final int MEALS_TO_REPRODUCE = 2;   
+
+    // event-engine lifecycle (see step), same timings as the sleeps in run()
+    protected static final int LOOP_DELAY = 100;
+    protected static final int REPRODUCTION_DELAY = 1000;
+    protected static final int FOOD_RETRY = 100;
+
+    protected enum Phase { HUNGRY, FULL, REPRODUCING }
+    protected Phase phase = Phase.HUNGRY;
+    protected long starveAt = -1;
     
     public Cell(int id, CellManager manager, ResourcePool resourcePool) {
         this.id = id;
         this.manager = manager;
         this.resourcePool = resourcePool;
-        this.mealsEaten = 0;
-        this.isAlive = true;
-        this.isHungry = true; 
-        this.wantsToReproduce = false;
+        this.params = manager.getParameters();
+        this.store = manager.getCellStore();
+        // starts alive and hungry with no meals
+        this.slot = store.allocate(id, this instanceof AsexualCell ? CellStore.ASEXUAL : CellStore.SEXUAL);
     }
 
     @Override
     public void run() {
-        while (isAlive && !Thread.currentThread().isInterrupted()) {
+        while (isAlive() && !Thread.currentThread().isInterrupted()) {
             try {
                 manager.checkPause();
+                manager.wander(this, manager.now());
 
-                if (isHungry) {
+                if (isHungry()) {
                     boolean ate = tryToEat();
                     if (!ate) {
                         die("starvation"); 
@@ -46,26 +62,104 @@ public abstract class Cell implements Runnable {
                 
                 manager.checkPause();
 
-                if (isAlive && mealsEaten >= MEALS_TO_REPRODUCE && !wantsToReproduce) {
-                    wantsToReproduce = true;
+                if (isAlive() && getMealsEaten() >= params.mealsToReproduce() && !isWantingToReproduce()) {
+                    store.setFlag(slot, CellStore.REPRODUCING, true);
+                    onReproductionStart();
                     tryToReproduce();
-                    if (!isAlive) break;
+                    if (!isAlive()) break;
                 }
                 
                 manager.sleepFor(100);
 
             } catch (InterruptedException e) {
-                if (isAlive) die("interrupted");
+                if (isAlive()) die("interrupted");
                 break;
             }
         }
     }
     
+    // one state transition of the hungry -> eat -> full -> reproduce -> die cycle at virtual time now.
+    // returns the virtual time of the next wake-up, or -1 once the cell is done
+    public synchronized long step(long now) {
+        if (!isAlive()) return -1;
+        manager.wander(this, now);
+        switch (phase) {
+            case HUNGRY:
+                if (starveAt < 0) starveAt = now + params.starveTime();
+                if (manager.eatNow(this)) return ate(now);
+                if (now >= starveAt) {
+                    die("starvation");
+                    return -1;
+                }
+                return Math.min(now + FOOD_RETRY, starveAt);
+            case FULL:
+                store.setFlag(slot, CellStore.HUNGRY, true);
+                return backToHungry(now);
+            case REPRODUCING:
+            default:
+                return stepReproduction(now);
+        }
+    }
+
+    private long ate(long now) {
+        manager.recordEvent(SimulationEventLog.EAT, id, 0);
+        manager.getMetrics().countMeal();
+        int meals = store.incrementMeals(slot);
+        store.setFlag(slot, CellStore.HUNGRY, false);
+        starveAt = -1;
+        if (meals >= params.mealsToReproduce() && !isWantingToReproduce()) {
+            store.setFlag(slot, CellStore.REPRODUCING, true);
+            onReproductionStart();
+            phase = Phase.REPRODUCING;
+            return now + REPRODUCTION_DELAY;
+        }
+        phase = Phase.FULL;
+        return now + LOOP_DELAY + params.fullTime();
+    }
+
+    // parallel engine: food from a neighbouring region, found in the merge after this cell's step came up empty
+    public synchronized boolean isWaitingForFood() {
+        return isAlive() && phase == Phase.HUNGRY;
+    }
+
+    // returns the new wake-up, -1 if it stopped waiting in the meantime
+    public synchronized long fed(long now) {
+        return isWaitingForFood() ? ate(now) : -1;
+    }
+
+    protected long backToHungry(long now) {
+        if (!isHungry()) {
+            phase = Phase.FULL;
+            return now + LOOP_DELAY + params.fullTime();
+        }
+        phase = Phase.HUNGRY;
+        starveAt = now + LOOP_DELAY + params.starveTime();
+        return now + LOOP_DELAY;
+    }
+
     protected boolean tryToEat() throws InterruptedException {
-        boolean success = resourcePool.tryToEat(id, BASE_STARVE_TIME); 
+        CellTimers.Timer starve = manager.startTimer(params.starveTime());
+        SimulationEvents.EatWait event = new SimulationEvents.EatWait();
+        event.begin();
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            int region = manager.regionOf(this);
+            success = region < 0 ? resourcePool.tryToEat(id, starve::isFired) : resourcePool.tryToEatIn(region, starve::isFired);
+        } finally {
+            starve.cancel();
+        }
+        manager.getMetrics().eatWaited(System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.cellId = id;
+            event.fed = success;
+            event.commit();
+        }
         if (success) {
-            mealsEaten++;
-            isHungry = false;
+            manager.recordEvent(SimulationEventLog.EAT, id, 0);
+            manager.getMetrics().countMeal();
+            store.incrementMeals(slot);
+            store.setFlag(slot, CellStore.HUNGRY, false);
             return true;
         }
         return false; 
@@ -73,31 +167,92 @@ public abstract class Cell implements Runnable {
 
     protected void waitUntilHungry() throws InterruptedException {
 
-        manager.sleepFor(BASE_FULL_TIME);
-        isHungry = true;
+        manager.sleepFor(params.fullTime());
+        store.setFlag(slot, CellStore.HUNGRY, true);
+    }
+
+    // flips the cell to dead exactly once and takes it out of the manager's live registry
+    protected boolean markDead() {
+        synchronized (this) {
+            if (released || !store.clearAlive(slot)) return false;
+        }
+        manager.onCellDeath(this);
+        return true;
     }
 
-    protected synchronized void die(String reason) {
-        if (!isAlive) return;
-        isAlive = false;
-        resourcePool.addFoodFromDeadCell(id);
+    protected void die(String reason) {
+        if (!markDead()) return;
+        boolean starved = reason.equals("starvation");
+        if (starved) manager.countStarvation();
+        manager.recordEvent(starved ? SimulationEventLog.STARVE : SimulationEventLog.KILLED, id, 0);
+        // food drop (and its logging) happens outside the monitor so a virtual thread never blocks while pinned
+        manager.dropFood(this);
     }
     
-    public synchronized void stop() { 
-        if (isAlive) die("simulation end"); 
+    public void stop() { 
+        die("simulation end"); 
+    }
+
+    // teardown: dead without a food drop, log lines or events, the pool and the log get one clear for everybody
+    public void discard() {
+        markDead();
+    }
+
+    // called by the engine once nothing will run this cell again: dies if it somehow hasn't, then frees its slot
+    public void retire() {
+        if (isAlive()) die("interrupted");
+        releaseSlot();
+    }
+
+    // the manager refused the cell before it was registered or launched: no death, no events, just the slot back
+    public void abandon() {
+        releaseSlot();
     }
+
+    private void releaseSlot() {
+        synchronized (this) {
+            if (released) return;
+            released = true;
+        }
+        store.release(slot);
+    }
+
+    // snapshot: when this cell starves if it finds nothing, -1 unless it is looking for food on an event engine
+    public synchronized long getStarveAt() { return starveAt; }
+
+    // snapshot restore, before the cell is added: meals, flags, position and next wake-up are already in the
+    // store, the phase follows from the flags the way step() leaves them
+    public synchronized void restore(long starveAt) {
+        this.starveAt = starveAt;
+        phase = isWantingToReproduce() ? Phase.REPRODUCING : isHungry() ? Phase.HUNGRY : Phase.FULL;
+    }
+
+    public void setNextWake(long at) {
+        if (!released) store.setNextWake(slot, at);
+    }
+
+    public long getNextWake() { return released ? -1 : store.nextWake(slot); }
     
     public synchronized void resetAfterReproduction() {
-        this.mealsEaten = 0;
-        this.wantsToReproduce = false;
-        this.isHungry = true; 
+        // a partner can still reset us after we retired, the slot may belong to someone else by then
+        if (released) return;
+        store.setMeals(slot, 0);
+        store.setFlag(slot, CellStore.REPRODUCING, false);
+        store.setFlag(slot, CellStore.HUNGRY, true);
     }
     
+    protected void onReproductionStart() {}
+
     protected abstract void tryToReproduce() throws InterruptedException;
+
+    // called by step() once per reproduction wake-up, REPRODUCTION_DELAY after the previous one
+    protected abstract long stepReproduction(long now);
     
-    public synchronized boolean isWantingToReproduce() { return wantsToReproduce; }
-    public synchronized boolean isAlive() { return isAlive; }
-    public synchronized int getId() { return id; }
-    public synchronized int getMealsEaten() { return mealsEaten; }
-    public synchronized boolean isHungry() { return isHungry; }
+    // lock-free reads straight from the store
+    public boolean isWantingToReproduce() { return !released && store.hasFlag(slot, CellStore.REPRODUCING); }
+    public boolean isAlive() { return !released && store.hasFlag(slot, CellStore.ALIVE); }
+    public int getId() { return id; }
+    public int getMealsEaten() { return released ? 0 : store.meals(slot); }
+    public boolean isHungry() { return !released && store.hasFlag(slot, CellStore.HUNGRY); }
+    public int getSlot() { return slot; }
 }
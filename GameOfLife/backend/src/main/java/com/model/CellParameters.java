@@ -0,0 +1,7 @@
+package com.model;
+
+// lifecycle tunables shared by every cell of one simulation
+public record CellParameters(int fullTime, int starveTime, int mealsToReproduce) {
+    public static final CellParameters DEFAULTS =
+            new CellParameters(Cell.BASE_FULL_TIME, Cell.BASE_STARVE_TIME, Cell.MEALS_TO_REPRODUCE);
+}
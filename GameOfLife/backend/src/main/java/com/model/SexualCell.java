@@ -1,13 +1,30 @@
 package com.model;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.service.CellManager;
 import com.service.ResourcePool;
+import com.service.SimulationEventLog;
 
 public class SexualCell extends Cell {
+    // mating handshake used by MatingRegistry
+    private static final int IDLE = 0;
+    private static final int WAITING = 1;
+    private static final int CLAIMED = 2;
+    private static final int DEAD = 3;
+    public static final int MATING_ATTEMPTS = 5; // partner searches before a cell gives up
+
+    private final AtomicInteger mateState = new AtomicInteger(IDLE);
+    private int reproductionAttempts = 0;
     
     public SexualCell(int id, CellManager manager, ResourcePool resourcePool) {
         super(id, manager, resourcePool);
     }
+
+    @Override
+    protected void onReproductionStart() {
+        manager.readyToMate(this);
+    }
     
     @Override
     protected void tryToReproduce() throws InterruptedException {
@@ -15,29 +32,80 @@ public class SexualCell extends Cell {
         SexualCell partner = null;
         
 
-        while (attempts < 5 && partner == null && isAlive) {
+        while (attempts < MATING_ATTEMPTS && partner == null && isAlive()) {
 
             manager.sleepFor(1000);
+
+            // another cell claimed us and already did the mating
+            if (!isWantingToReproduce()) return;
             
             partner = manager.findMatingPartner(this);
             attempts++;
         }
         
         if (partner != null) {
+            // both cells are claimed at this point, nobody else can pair with either of them
+            manager.reproduce(this, partner);
+            
 
-            synchronized (manager) {
+            this.resetAfterReproduction();
+            partner.resetAfterReproduction();
+        } else {
 
-                if (partner.isWantingToReproduce() && partner.isAlive()) {
-                    manager.reproduce(this, partner);
-                    
+            this.resetAfterReproduction();
+        }
+    }
 
-                    this.resetAfterReproduction();
-                    partner.resetAfterReproduction();
-                }
-            }
-        } else {
+    @Override
+    protected long stepReproduction(long now) {
+        // a partner already mated with us on its own wake-up
+        if (!isWantingToReproduce()) return afterReproduction(now);
+
+        SexualCell partner = manager.findMatingPartner(this);
+        reproductionAttempts++;
 
+        if (partner != null) {
+            manager.reproduce(this, partner);
             this.resetAfterReproduction();
+            partner.resetAfterReproduction();
+            return afterReproduction(now);
         }
+        // a deferred search is answered after this step, after the last one the merge gives up for us
+        if (reproductionAttempts < MATING_ATTEMPTS || manager.defersMating()) return now + REPRODUCTION_DELAY;
+
+        this.resetAfterReproduction();
+        return afterReproduction(now);
+    }
+
+    private long afterReproduction(long now) {
+        reproductionAttempts = 0;
+        return backToHungry(now);
     }
+
+    @Override
+    public synchronized void resetAfterReproduction() {
+        super.resetAfterReproduction();
+        mateState.updateAndGet(s -> s == DEAD ? DEAD : IDLE);
+        manager.recordEvent(SimulationEventLog.MEALS_RESET, id, 0);
+    }
+
+    @Override
+    protected void die(String reason) {
+        mateState.set(DEAD);
+        super.die(reason);
+    }
+
+    @Override
+    public void discard() {
+        mateState.set(DEAD);
+        super.discard();
+    }
+
+    // searches so far in the current reproduction phase (event engines)
+    public synchronized int getReproductionAttempts() { return reproductionAttempts; }
+    public synchronized void restoreReproductionAttempts(int attempts) { reproductionAttempts = attempts; }
+
+    public boolean markReadyToMate() { return mateState.compareAndSet(IDLE, WAITING); }
+    public boolean tryClaim() { return mateState.compareAndSet(WAITING, CLAIMED); }
+    public void releaseClaim() { mateState.compareAndSet(CLAIMED, WAITING); }
 }
@@ -0,0 +1,25 @@
+package com.service;
+
+import com.model.Cell;
+
+// drives registered cells through their lifecycle; CellManager owns the cells, the engine owns the execution
+public interface CellEngine {
+    void launch(Cell cell);
+
+    // stops every running cell task as one group and waits up to timeoutMs for them; the engine keeps taking
+    // new cells afterwards. false when the deadline passed with tasks still running
+    boolean cancelCells(long timeoutMs) throws InterruptedException;
+
+    // after a pause: waits up to timeoutMs until nothing steps a cell any more, so the population can be read
+    // as one consistent picture. false when the deadline passed first
+    boolean awaitPaused(long timeoutMs) throws InterruptedException;
+
+    // like cancelCells, but for good: nothing is launched afterwards
+    boolean shutdown(long timeoutMs) throws InterruptedException;
+
+    // logical ms since the engine started, what the event log timestamps with
+    long now();
+
+    // cell steps taken so far; thread mode has no discrete steps and reports 0
+    long cellUpdates();
+}
@@ -1,113 +1,406 @@
 package com.service;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 import com.model.AsexualCell;
 import com.model.Cell;
+import com.model.CellParameters;
 import com.model.SexualCell;
 
 public class CellManager {
-    private final List<Cell> cells;
-    private final List<Thread> threads;
+    // upper bound on waiting for cell tasks to end in killAll/stopAll
+    private static final long TEARDOWN_TIMEOUT_MS = 2000;
+    private static final int MATING_SAMPLE = 64; // one timed partner search in this many
+
+    private final CellRegistry registry;
     private final AtomicInteger nextCellId;
     private final ResourcePool resourcePool;
+    private final ExecutionMode executionMode;
+    private final CellParameters parameters;
+    // created on first use: the engines keep a reference to their manager, which mustn't leak from the constructor
+    private volatile CellEngine engine;
+    private volatile ParallelTickEngine parallel; // null unless the engine is one, see steppingRegion()
+    private final MatingRegistry matingRegistry;
+    private final SpatialWorld world; // null = no positions, everyone feeds and mates with everyone
+    private final CellStore cellStore = new CellStore();
+    private volatile int cellCapacity = Integer.MAX_VALUE;
+    private volatile boolean tearingDown = false; // births are refused while the board is being cleared
+    private volatile long lastTeardownMs = 0;
+    private volatile SimulationEventLog eventLog; // null = not recording
     
     // STATS TRACKERS
     private final AtomicInteger totalReproductions = new AtomicInteger(0); // Sexual
     private final AtomicInteger totalDivisions = new AtomicInteger(0);     // Asexual
+    private final AtomicInteger totalStarvations = new AtomicInteger(0);
+    private final SimulationMetrics metrics = new SimulationMetrics();
     
-    private final AtomicReference<Double> timeScale = new AtomicReference<>(1.0);
-    private boolean isPaused = false;
-    private final Object pauseLock = new Object();
+    // pause, speed and shutdown in one word: the per-iteration check is a single volatile read
+    private final ControlWord control = new ControlWord();
+    private final CellTimers timers = new CellTimers(control); // thread engines only, its thread starts on first use
 
     public CellManager(ResourcePool resourcePool) {
-        this.cells = new CopyOnWriteArrayList<>();
-        this.threads = new CopyOnWriteArrayList<>();
+        this(resourcePool, ExecutionMode.PLATFORM);
+    }
+
+    public CellManager(ResourcePool resourcePool, ExecutionMode executionMode) {
+        this(resourcePool, executionMode, CellParameters.DEFAULTS);
+    }
+
+    public CellManager(ResourcePool resourcePool, ExecutionMode executionMode, CellParameters parameters) {
+        this(resourcePool, executionMode, parameters, null);
+    }
+
+    // a spatial manager needs a pool built on the same world, its stripes are the world's regions
+    public CellManager(ResourcePool resourcePool, ExecutionMode executionMode, CellParameters parameters, SpatialWorld world) {
+        this.parameters = parameters;
+        this.world = world;
+        this.matingRegistry = new MatingRegistry(world);
+        this.registry = new CellRegistry();
         this.nextCellId = new AtomicInteger(1);
         this.resourcePool = resourcePool;
+        this.executionMode = executionMode;
+        if (executionMode.isParallel() && world == null) {
+            throw new IllegalArgumentException("parallel mode needs a spatial world");
+        }
+    }
+
+    private CellEngine engine() {
+        CellEngine e = engine;
+        return e != null ? e : createEngine();
     }
 
+    private synchronized CellEngine createEngine() {
+        if (engine == null) {
+            CellEngine e = executionMode.createEngine(this);
+            parallel = e instanceof ParallelTickEngine p ? p : null;
+            engine = e;
+        }
+        return engine;
+    }
+
+    // takes effect on every pending timer at once, their deadlines are in virtual time
     public void setSpeed(String speed) {
-        if (speed.equals("fast")) timeScale.set(0.2);
-        else if (speed.equals("slow")) timeScale.set(2.0);
-        else timeScale.set(1.0);
+        // "max" only makes sense for the event engine, thread mode clamps it (see CellTimers)
+        control.setSpeed(ControlWord.speedOf(speed));
+        timers.wake();
     }
 
+    // virtual ms, woken by the shared timer thread instead of a sleep of its own
     public void sleepFor(long milliseconds) throws InterruptedException {
-        long scaledDuration = (long) (milliseconds * timeScale.get());
-        if (scaledDuration < 10) scaledDuration = 10;
-        Thread.sleep(scaledDuration);
+        timers.sleep(milliseconds);
+    }
+
+    // a deadline that unparks the calling thread, e.g. starvation while it waits for food
+    public CellTimers.Timer startTimer(long milliseconds) {
+        return timers.start(milliseconds);
     }
 
+    public double getTimeScale() { return ControlWord.timeScale(control.get()); }
+
+    // the whole control state in one read, for loops that need more than one of its fields
+    public long controlWord() { return control.get(); }
+
+    // paused cells park and are unparked together on resume, see ControlWord
     public void setPaused(boolean paused) {
-        synchronized (pauseLock) {
-            this.isPaused = paused;
-            if (!paused) pauseLock.notifyAll();
-        }
+        control.setPaused(paused);
+        timers.wake();
     }
 
+    // safepoint: a volatile read and a bit test unless paused. an interrupt while paused returns with the flag set
     public void checkPause() {
-        synchronized (pauseLock) {
-            while (isPaused) {
-                try { pauseLock.wait(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
-            }
+        if (ControlWord.isPaused(control.get())) awaitResume();
+    }
+
+    private void awaitResume() {
+        SimulationEvents.PauseWait event = new SimulationEvents.PauseWait();
+        event.begin();
+        long start = System.nanoTime();
+        control.awaitResume();
+        metrics.pauseWaited(System.nanoTime() - start);
+        event.commit();
+    }
+
+    // pause handshake: true once the engine no longer steps any cell, false if it didn't get there in time
+    public boolean awaitPaused(long timeoutMs) throws InterruptedException {
+        return engine().awaitPaused(timeoutMs);
+    }
+
+    public boolean isPaused() {
+        return ControlWord.isPaused(control.get());
+    }
+
+    public int nextCellId() {
+        return nextCellId.getAndIncrement();
+    }
+
+    // per-simulation quota. platform threads are one per cell, so they cap the population too
+    public void setLimits(int maxCells, int maxThreads) {
+        this.cellCapacity = executionMode == ExecutionMode.PLATFORM ? Math.min(maxCells, maxThreads) : maxCells;
+    }
+
+    public boolean addCell(Cell cell) {
+        if (tearingDown || registry.getAliveCount() >= cellCapacity) {
+            cell.abandon(); // its store slot was taken when it was constructed
+            return false;
         }
+        if (world != null && Float.isNaN(cellStore.x(cell.getSlot()))) {
+            world.placeRandomly(cellStore, cell.getSlot(), cell.id);
+        }
+        registry.register(cell);
+        recordEvent(cell instanceof AsexualCell ? SimulationEventLog.BIRTH_ASEXUAL : SimulationEventLog.BIRTH_SEXUAL, cell.id, 0);
+        engine().launch(cell);
+        return true;
+    }
+
+    public void addFood(int amount) {
+        resourcePool.addFood(amount);
+        recordEvent(SimulationEventLog.FOOD_ADDED, 0, amount);
+    }
+
+    // events are stamped with the engine's logical time, recordEvent is a no-op until a log is attached
+    public void setEventLog(SimulationEventLog eventLog) {
+        this.eventLog = eventLog;
     }
 
-    public void addCell(Cell cell) {
-        cells.add(cell);
-        Thread thread = new Thread(cell, "Cell-" + cell.id);
-        threads.add(thread);
-        thread.start();
+    public SimulationEventLog getEventLog() { return eventLog; }
+
+    public long now() { return engine().now(); }
+
+    public void recordEvent(byte type, int cellId, int arg) {
+        SimulationEventLog log = eventLog;
+        if (log == null) return;
+        ParallelTickEngine.Region r = steppingRegion();
+        if (r != null) r.record(type, cellId, arg);
+        else log.append(type, cellId, arg);
     }
 
+    // the region the parallel engine is working on on this thread, null anywhere else. whatever reaches past it
+    // goes into the region's event batch or hand-off lists, the end-of-tick merge takes it from there
+    private ParallelTickEngine.Region steppingRegion() {
+        ParallelTickEngine p = parallel;
+        return p != null ? p.current() : null;
+    }
+
+    // non-blocking meal for the event engines. mid parallel tick only the region's own stripe is safe to take
+    // from, the regions around it are tried in the merge
+    public boolean eatNow(Cell cell) {
+        if (world == null) return resourcePool.tryToEatNow(cell.id);
+        ParallelTickEngine.Region r = steppingRegion();
+        if (r == null) return resourcePool.tryToEatNowIn(regionOf(cell));
+        if (resourcePool.tryToEatNowAt(r.index())) return true;
+        r.hungry(cell);
+        return false;
+    }
+
+    // the merge side of eatNow: a meal from anywhere around the region
+    boolean eatAround(int region) {
+        return resourcePool.tryToEatNowIn(region);
+    }
+
+    // a dead cell's remains go back into the pool where it died
+    public void dropFood(Cell cell) {
+        ParallelTickEngine.Region r = steppingRegion();
+        if (r != null) {
+            r.died(cell);
+            return;
+        }
+        int region = regionOf(cell);
+        int dropped = region < 0 ? resourcePool.addFoodFromDeadCell(cell.id) : resourcePool.addFoodFromDeadCellIn(cell.id, region);
+        recordEvent(SimulationEventLog.FOOD_DROP, cell.id, dropped);
+    }
+
+    public void onCellDeath(Cell cell) {
+        registry.unregister(cell);
+    }
+
+    public void countStarvation() {
+        totalStarvations.incrementAndGet();
+        metrics.countStarvation();
+    }
+
+    // the cell's region in the spatial world, -1 without one
+    public int regionOf(Cell cell) {
+        return world != null ? world.regionOf(cellStore, cell.getSlot()) : -1;
+    }
+
+    // a small step at every wake-up, nothing without a world
+    public void wander(Cell cell, long now) {
+        if (world != null) world.wander(cellStore, cell.getSlot(), cell.id, now);
+    }
+
+    // mid parallel tick into the queue of the region being worked on, nobody polls it before the merge
+    public void readyToMate(SexualCell cell) {
+        ParallelTickEngine.Region r = steppingRegion();
+        matingRegistry.offer(cell, r != null ? r.index() : regionOf(cell));
+    }
+
+    // claims both the requester and the partner, the caller owns the pair until it resets them.
+    // the parallel engine always answers null here and pairs the requester up in the merge instead
     public SexualCell findMatingPartner(SexualCell requester) {
-        for (Cell cell : cells) {
-            if (cell instanceof SexualCell && cell != requester && cell.isAlive() && cell.isWantingToReproduce()) {
-                return (SexualCell) cell;
-            }
+        ParallelTickEngine.Region r = steppingRegion();
+        if (r != null) {
+            r.search(requester);
+            return null;
         }
-        return null;
+        return claimPartner(requester);
     }
 
+    // a search is a few CAS attempts, reading the clock around every one of them would cost about as much as
+    // the search, so only one in MATING_SAMPLE lands in the histogram. the counters see all of them
+    private SexualCell claimPartner(SexualCell requester) {
+        SimulationEvents.MatingSearch event = new SimulationEvents.MatingSearch();
+        event.begin();
+        boolean timed = ThreadLocalRandom.current().nextInt(MATING_SAMPLE) == 0;
+        long start = timed ? System.nanoTime() : 0;
+        SexualCell partner = matingRegistry.claimPartner(requester, regionOf(requester));
+        metrics.matingSearched(partner != null);
+        if (timed) metrics.matingSearchTimed(System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.cellId = requester.id;
+            event.found = partner != null;
+            event.commit();
+        }
+        return partner;
+    }
+
+    // a partner can live in any region, so a mid-tick search is answered after the tick
+    public boolean defersMating() {
+        return executionMode.isParallel();
+    }
+
+    // the merge side of findMatingPartner: the requester notices it mated, or gave up, at its next wake-up
+    void mate(SexualCell requester) {
+        if (!requester.isAlive() || !requester.isWantingToReproduce()) return;
+        SexualCell partner = claimPartner(requester);
+        if (partner == null) {
+            // that was its last search
+            if (requester.getReproductionAttempts() >= SexualCell.MATING_ATTEMPTS) requester.resetAfterReproduction();
+            return;
+        }
+        reproduce(requester, partner);
+        requester.resetAfterReproduction();
+        partner.resetAfterReproduction();
+    }
 
     public void reproduce(Cell parent1, Cell parent2) {
+        ParallelTickEngine.Region r = steppingRegion();
+        if (r != null) {
+            // ids, births and their events come out in merge order
+            r.born(parent1, parent2);
+            return;
+        }
         if (parent1 instanceof AsexualCell) {
             // Asexual Division
             totalDivisions.incrementAndGet(); // TRACK DIVISION
-            
-            addCell(new AsexualCell(nextCellId.getAndIncrement(), this, resourcePool));
-            addCell(new AsexualCell(nextCellId.getAndIncrement(), this, resourcePool));
+            metrics.countDivision();
+            recordEvent(SimulationEventLog.DIVIDE, parent1.id, 0);
+
+            addCell(bornNear(new AsexualCell(nextCellId.getAndIncrement(), this, resourcePool), parent1));
+            addCell(bornNear(new AsexualCell(nextCellId.getAndIncrement(), this, resourcePool), parent1));
         } else if (parent1 instanceof SexualCell && parent2 instanceof SexualCell) {
             // Sexual Reproduction
             totalReproductions.incrementAndGet(); // TRACK REPRODUCTION
-            
-            addCell(new SexualCell(nextCellId.getAndIncrement(), this, resourcePool));
+            metrics.countReproduction();
+            recordEvent(SimulationEventLog.MATE, parent1.id, parent2.id);
+
+            addCell(bornNear(new SexualCell(nextCellId.getAndIncrement(), this, resourcePool), parent1));
         }
     }
 
-    public void killAll() {
-        for (Cell cell : cells) cell.stop();
-        try { Thread.sleep(50); } catch (Exception ignored) {} 
-        cells.clear(); 
-        threads.clear();
+    // offspring start next to the parent instead of anywhere on the board
+    private Cell bornNear(Cell child, Cell parent) {
+        if (world != null) world.placeNear(cellStore, child.getSlot(), child.id, parent.getSlot());
+        return child;
+    }
+
+    // empties the board and keeps the simulation running, returns how long it took
+    public long killAll() {
+        long start = System.nanoTime();
+        tearingDown = true;
+        try {
+            for (Cell cell : registry.snapshot()) cell.discard();
+            boolean done = engine().cancelCells(TEARDOWN_TIMEOUT_MS);
+            if (!done) ConsoleLog.stdout().teardownSlow(TEARDOWN_TIMEOUT_MS, false);
+            // a birth that passed the tearingDown check just before it was set registered after our snapshot
+            for (Cell cell : registry.snapshot()) cell.discard();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clearBoard();
+            tearingDown = false;
+        }
+        return lastTeardownMs = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private void clearBoard() {
+        registry.clear(); 
+        matingRegistry.clear();
         resourcePool.clear(); 
+        recordEvent(SimulationEventLog.CLEARED, 0, 0);
         nextCellId.set(1);
         // Reset Stats
         totalReproductions.set(0);
         totalDivisions.set(0);
+        totalStarvations.set(0);
+    }
+
+    // snapshot restore, before the first cell is added
+    public void restoreCounters(int nextId, int reproductions, int divisions, int starvations) {
+        nextCellId.set(nextId);
+        totalReproductions.set(reproductions);
+        totalDivisions.set(divisions);
+        totalStarvations.set(starvations);
     }
 
-    public int getAliveCellsCount() { return (int) cells.stream().filter(Cell::isAlive).count(); }
+    public int getAliveCellsCount() { return registry.getAliveCount(); }
+    public int getAliveAsexualCount() { return registry.getAliveAsexualCount(); }
+    public int getAliveSexualCount() { return registry.getAliveSexualCount(); }
     
 
     public int getTotalReproductions() { return totalReproductions.get(); }
     public int getTotalDivisions() { return totalDivisions.get(); } // NEW GETTER
+    public int getTotalStarvations() { return totalStarvations.get(); }
+    public int getTotalCellsCreated() { return nextCellId.get() - 1; }
+    public CellParameters getParameters() { return parameters; }
+    public CellStore getCellStore() { return cellStore; }
+    public SpatialWorld getWorld() { return world; }
     
-    public List<Cell> getCells() { return new ArrayList<>(cells); }
-    public void stopAll() { killAll(); for (Thread t : threads) t.interrupt(); }
+    public ExecutionMode getExecutionMode() { return executionMode; }
+    public long getCellUpdates() { return engine().cellUpdates(); }
+    public SimulationMetrics getMetrics() { return metrics; }
+
+    public List<Cell> getCells() { return registry.snapshot(); }
+    // ends the simulation for good within TEARDOWN_TIMEOUT_MS whatever the population: the cell tasks are cancelled
+    // as one group and waited for with a deadline. returns how long it took
+    public long stopAll() {
+        long start = System.nanoTime();
+        long deadline = start + TEARDOWN_TIMEOUT_MS * 1_000_000;
+        control.shutdown(); // also wakes everyone parked on a pause
+        tearingDown = true;
+        boolean done = false;
+        try {
+            for (Cell cell : registry.snapshot()) cell.discard();
+            done = engine().shutdown(TEARDOWN_TIMEOUT_MS)
+                    & timers.shutdown(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clearBoard();
+        }
+        if (!done) ConsoleLog.stdout().teardownSlow(TEARDOWN_TIMEOUT_MS, true);
+        return lastTeardownMs = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    public long getLastTeardownMs() { return lastTeardownMs; }
+
+    // HEADLESS and PARALLEL_HEADLESS only: runs the simulation to extinction or the horizon on the calling thread
+    // (the parallel engine fans out from there), returns virtual ms reached
+    public long runHeadless(long horizonMs) {
+        CellEngine engine = engine();
+        if (engine instanceof TickEngine tickEngine) return tickEngine.runHeadless(horizonMs);
+        if (engine instanceof ParallelTickEngine parallelEngine) return parallelEngine.runHeadless(horizonMs);
+        throw new IllegalStateException("runHeadless needs a headless ExecutionMode, not " + executionMode);
+    }
 }
@@ -0,0 +1,41 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.model.AsexualCell;
+import com.model.Cell;
+
+// live cells only, keyed by id. dead cells are dropped as soon as they die so nothing scans corpses
+public class CellRegistry {
+    private final ConcurrentHashMap<Integer, Cell> alive = new ConcurrentHashMap<>();
+    private final AtomicInteger aliveAsexual = new AtomicInteger(0);
+    private final AtomicInteger aliveSexual = new AtomicInteger(0);
+
+    public void register(Cell cell) {
+        if (alive.putIfAbsent(cell.id, cell) == null) counterFor(cell).incrementAndGet();
+    }
+
+    public void unregister(Cell cell) {
+        // remove(key, value) makes a second unregister of the same cell a no-op
+        if (alive.remove(cell.id, cell)) counterFor(cell).decrementAndGet();
+    }
+
+    private AtomicInteger counterFor(Cell cell) {
+        return cell instanceof AsexualCell ? aliveAsexual : aliveSexual;
+    }
+
+    public List<Cell> snapshot() { return new ArrayList<>(alive.values()); }
+
+    public int getAliveCount() { return aliveAsexual.get() + aliveSexual.get(); }
+    public int getAliveAsexualCount() { return aliveAsexual.get(); }
+    public int getAliveSexualCount() { return aliveSexual.get(); }
+
+    public void clear() {
+        alive.clear();
+        aliveAsexual.set(0);
+        aliveSexual.set(0);
+    }
+}
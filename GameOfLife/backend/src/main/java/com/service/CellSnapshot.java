@@ -0,0 +1,331 @@
+package com.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.model.AsexualCell;
+import com.model.Cell;
+import com.model.CellParameters;
+import com.model.SexualCell;
+
+// point-in-time copy of a running CellManager and its pool in one memory-mapped file, so a run survives a restart
+// or moves to another node. header = magic, version, mode, world side (0 = none), parameters, counters, the food
+// of every stripe and the cell count; then one column per cell field like the CellStore holds them, 19 bytes a
+// cell (27 with positions). timers are stored as ms from the snapshot's logical time and restored relative to the
+// new engine's clock. taking one pauses the simulation only while the columns are copied, the file is written
+// after it resumed. reading one copies it to the heap in one go, no mapping outlives the call
+public final class CellSnapshot {
+    static final int MAGIC = 0x474F4C53; // "GOLS"
+    static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 1 + 4 + 3 * 4 + 4 * 4 + 8 + 4 + 4;
+    // how long a snapshot waits for the engine to acknowledge the pause
+    private static final long PAUSE_TIMEOUT_MS = 2000;
+
+    public record Summary(int cells, int food, long bytes, long pausedMicros, long tookMicros) {}
+
+    public record Restored(CellManager manager, ResourcePool pool, int cells, int food, long tookMicros) {}
+
+    private CellSnapshot() {}
+
+    // the columns, copied from the live cells while the simulation is paused
+    private static final class Columns {
+        final int[] ids, meals, wakeIn, starveIn;
+        final byte[] types, flags, attempts;
+        final float[] xs, ys;
+
+        Columns(int n, boolean spatial) {
+            ids = new int[n];
+            meals = new int[n];
+            wakeIn = new int[n];
+            starveIn = new int[n];
+            types = new byte[n];
+            flags = new byte[n];
+            attempts = new byte[n];
+            xs = spatial ? new float[n] : new float[0];
+            ys = spatial ? new float[n] : new float[0];
+        }
+    }
+
+    public static Summary write(CellManager manager, ResourcePool pool, Path path) {
+        long start = System.nanoTime();
+        boolean spatial = manager.getWorld() != null;
+        // allocated (and zeroed) before the pause, with room for the births that may come first
+        int expected = manager.getAliveCellsCount();
+        Columns c = new Columns(expected + expected / 16 + 1024, spatial);
+        boolean wasPaused = manager.isPaused();
+        long pauseStart = System.nanoTime();
+        manager.setPaused(true);
+        long now;
+        int count;
+        int[] food = new int[pool.getStripeCount()];
+        int nextId, reproductions, divisions, starvations;
+        try {
+            // the pause bit only asks: a cell or tick under way finishes first, copying before that would mix states
+            if (!awaitPaused(manager)) {
+                throw new IllegalStateException("Simulation did not pause within " + PAUSE_TIMEOUT_MS + " ms, no snapshot taken");
+            }
+            // the cells the registry still holds; one that dies mid-copy is saved as it was when it was read
+            List<Cell> cells = manager.getCells();
+            now = manager.now();
+            CellStore store = manager.getCellStore();
+            if (cells.size() > c.ids.length) c = new Columns(cells.size(), spatial);
+            count = 0;
+            for (Cell cell : cells) {
+                if (!cell.isAlive()) continue;
+                int slot = cell.getSlot();
+                int i = count++;
+                c.ids[i] = cell.getId();
+                c.types[i] = cell instanceof AsexualCell ? CellStore.ASEXUAL : CellStore.SEXUAL;
+                c.meals[i] = cell.getMealsEaten();
+                c.flags[i] = (byte) store.flags(slot);
+                c.wakeIn[i] = relative(cell.getNextWake(), now);
+                c.starveIn[i] = relative(cell.getStarveAt(), now);
+                c.attempts[i] = cell instanceof SexualCell s ? (byte) s.getReproductionAttempts() : 0;
+                if (spatial) {
+                    c.xs[i] = store.x(slot);
+                    c.ys[i] = store.y(slot);
+                }
+            }
+            for (int s = 0; s < food.length; s++) food[s] = pool.getFoodIn(s);
+            nextId = manager.getTotalCellsCreated() + 1;
+            reproductions = manager.getTotalReproductions();
+            divisions = manager.getTotalDivisions();
+            starvations = manager.getTotalStarvations();
+        } finally {
+            if (!wasPaused) manager.setPaused(false);
+        }
+        long paused = System.nanoTime() - pauseStart;
+
+        SpatialWorld world = manager.getWorld();
+        CellParameters params = manager.getParameters();
+        long size = HEADER_BYTES + 4L * food.length + cellBytes(count, world != null);
+        // written next to the target and moved over it, a reader never sees half a snapshot
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).put(VERSION).put((byte) manager.getExecutionMode().ordinal());
+            out.putInt(world != null ? world.side() : 0);
+            out.putInt(params.fullTime()).putInt(params.starveTime()).putInt(params.mealsToReproduce());
+            out.putInt(nextId).putInt(reproductions).putInt(divisions).putInt(starvations);
+            out.putLong(now);
+            out.putInt(food.length);
+            out.asIntBuffer().put(food);
+            out.position(out.position() + 4 * food.length);
+            out.putInt(count);
+            putInts(out, c.ids, count);
+            out.put(c.types, 0, count);
+            putInts(out, c.meals, count);
+            out.put(c.flags, 0, count);
+            putInts(out, c.wakeIn, count);
+            putInts(out, c.starveIn, count);
+            out.put(c.attempts, 0, count);
+            if (world != null) {
+                putFloats(out, c.xs, count);
+                putFloats(out, c.ys, count);
+            }
+            out.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int total = 0;
+        for (int f : food) total += f;
+        return new Summary(count, total, size, paused / 1000, (System.nanoTime() - start) / 1000);
+    }
+
+    private static boolean awaitPaused(CellManager manager) {
+        try {
+            return manager.awaitPaused(PAUSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // a snapshot read and checked, not yet running anything
+    public static final class Image {
+        private final ExecutionMode mode;
+        private final int side;
+        private final CellParameters params;
+        private final int nextId, reproductions, divisions, starvations;
+        private final int[] food;
+        private final int count;
+        private final Columns c;
+
+        private Image(ExecutionMode mode, int side, CellParameters params, int nextId, int reproductions, int divisions,
+                      int starvations, int[] food, int count, Columns c) {
+            this.mode = mode;
+            this.side = side;
+            this.params = params;
+            this.nextId = nextId;
+            this.reproductions = reproductions;
+            this.divisions = divisions;
+            this.starvations = starvations;
+            this.food = food;
+            this.count = count;
+            this.c = c;
+        }
+
+        public int cells() { return count; }
+
+        // a paused manager with the snapshot's population, food and counters. thread engines keep no timers, their
+        // cells start their loop over from the saved meals and hunger; a half-done reproduction starts again
+        public Restored restore(int maxCells, int maxThreads) {
+            long start = System.nanoTime();
+            SpatialWorld world = side > 0 ? new SpatialWorld(side) : null;
+            ResourcePool pool = world != null ? new ResourcePool(0, world, null) : new ResourcePool(0);
+            pool.restoreFood(food);
+            CellManager manager = new CellManager(pool, mode, params, world);
+            manager.setLimits(maxCells, maxThreads);
+            manager.restoreCounters(nextId, reproductions, divisions, starvations);
+            // nothing runs until the caller resumes, the restored timers count from the engine's clock as of then
+            manager.setPaused(true);
+
+            boolean stepped = mode != ExecutionMode.PLATFORM && mode != ExecutionMode.VIRTUAL;
+            long now = manager.now();
+            CellStore store = manager.getCellStore();
+            int restored = 0;
+            for (int i = 0; i < count; i++) {
+                Cell cell = c.types[i] == CellStore.ASEXUAL
+                        ? new AsexualCell(c.ids[i], manager, pool)
+                        : new SexualCell(c.ids[i], manager, pool);
+                int slot = cell.getSlot();
+                int flags = c.flags[i] & 0xFF;
+                boolean reproducing = stepped && (flags & CellStore.REPRODUCING) != 0;
+                store.setMeals(slot, c.meals[i]);
+                store.setFlag(slot, CellStore.HUNGRY, (flags & CellStore.HUNGRY) != 0);
+                store.setFlag(slot, CellStore.REPRODUCING, reproducing);
+                if (world != null) store.setPosition(slot, c.xs[i], c.ys[i]);
+                if (stepped) {
+                    cell.setNextWake(absolute(c.wakeIn[i], now));
+                    cell.restore(absolute(c.starveIn[i], now));
+                }
+                if (cell instanceof SexualCell s && reproducing) s.restoreReproductionAttempts(c.attempts[i]);
+                if (!manager.addCell(cell)) break; // over this node's cell limit
+                restored++;
+                if (cell instanceof SexualCell s && reproducing) manager.readyToMate(s);
+            }
+            return new Restored(manager, pool, restored, pool.getAvailableFood(), (System.nanoTime() - start) / 1000);
+        }
+    }
+
+    // reads and checks the whole file before anything is built from it: whatever doesn't add up is an
+    // IllegalArgumentException, the file comes from outside
+    public static Image read(Path path) {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("Snapshot too large: " + path);
+            in = ByteBuffer.allocate((int) size);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // until full or the end of the file
+            }
+            in.flip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a simulation snapshot: " + path);
+        }
+        byte version = in.get();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported snapshot version " + version);
+        int ordinal = in.get() & 0xFF;
+        ExecutionMode[] modes = ExecutionMode.values();
+        if (ordinal >= modes.length) throw new IllegalArgumentException("Unknown execution mode " + ordinal + " in " + path);
+        int side = in.getInt();
+        if (side < 0) throw new IllegalArgumentException("Bad world side " + side + " in " + path);
+        int fullTime = in.getInt(), starveTime = in.getInt(), mealsToReproduce = in.getInt();
+        if (fullTime <= 0 || starveTime <= 0 || mealsToReproduce <= 0) {
+            throw new IllegalArgumentException("Bad cell parameters in " + path);
+        }
+        int nextId = in.getInt(), reproductions = in.getInt(), divisions = in.getInt(), starvations = in.getInt();
+        if (nextId < 1 || reproductions < 0 || divisions < 0 || starvations < 0) {
+            throw new IllegalArgumentException("Bad counters in " + path);
+        }
+        in.getLong(); // logical time of the snapshot, timers are relative to it
+        int foodLength = in.getInt();
+        // the cell count follows the food
+        if (foodLength < 0 || 4L * foodLength + 4 > in.remaining()) {
+            throw new IllegalArgumentException("Bad food length " + foodLength + " in " + path);
+        }
+        int[] food = new int[foodLength];
+        in.asIntBuffer().get(food);
+        in.position(in.position() + 4 * foodLength);
+        for (int f : food) {
+            if (f < 0) throw new IllegalArgumentException("Negative food in " + path);
+        }
+        int count = in.getInt();
+        if (count < 0 || in.remaining() < cellBytes(count, side > 0)) {
+            throw new IllegalArgumentException("Truncated snapshot or bad cell count " + count + ": " + path);
+        }
+
+        Columns c = new Columns(count, side > 0);
+        getInts(in, c.ids, count);
+        in.get(c.types, 0, count);
+        getInts(in, c.meals, count);
+        in.get(c.flags, 0, count);
+        getInts(in, c.wakeIn, count);
+        getInts(in, c.starveIn, count);
+        in.get(c.attempts, 0, count);
+        if (side > 0) {
+            getFloats(in, c.xs, count);
+            getFloats(in, c.ys, count);
+        }
+        for (int i = 0; i < count; i++) {
+            if (c.ids[i] < 1 || c.meals[i] < 0 || (c.types[i] != CellStore.ASEXUAL && c.types[i] != CellStore.SEXUAL)) {
+                throw new IllegalArgumentException("Bad cell " + i + " in " + path);
+            }
+        }
+        return new Image(modes[ordinal], side, new CellParameters(fullTime, starveTime, mealsToReproduce),
+                nextId, reproductions, divisions, starvations, food, count, c);
+    }
+
+    private static long cellBytes(int count, boolean spatial) {
+        return (long) count * (4 + 1 + 4 + 1 + 4 + 4 + 1 + (spatial ? 8 : 0));
+    }
+
+    private static int relative(long at, long now) {
+        return at < 0 ? -1 : (int) Math.min(Integer.MAX_VALUE, Math.max(0, at - now));
+    }
+
+    private static long absolute(int in, long now) {
+        return in < 0 ? -1 : now + in;
+    }
+
+    // bulk copies through a view buffer, which doesn't move the position of the one it was made from
+    private static void putInts(MappedByteBuffer out, int[] values, int count) {
+        out.asIntBuffer().put(values, 0, count);
+        out.position(out.position() + 4 * count);
+    }
+
+    private static void putFloats(MappedByteBuffer out, float[] values, int count) {
+        out.asFloatBuffer().put(values, 0, count);
+        out.position(out.position() + 4 * count);
+    }
+
+    private static void getInts(ByteBuffer in, int[] values, int count) {
+        in.asIntBuffer().get(values, 0, count);
+        in.position(in.position() + 4 * count);
+    }
+
+    private static void getFloats(ByteBuffer in, float[] values, int count) {
+        in.asFloatBuffer().get(values, 0, count);
+        in.position(in.position() + 4 * count);
+    }
+}
@@ -0,0 +1,162 @@
+package com.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantLock;
+
+// columnar cell state: one primitive array per field, indexed by slot. 26 bytes a cell, so a million cells
+// is ~26MB in a handful of arrays instead of a million scattered objects, and a status scan walks memory in order.
+// storage is paged so growing never copies (and never loses) a write, slots of dead cells are reused
+public class CellStore {
+    public static final byte FREE = 0;
+    public static final byte ASEXUAL = 1;
+    public static final byte SEXUAL = 2;
+
+    public static final int ALIVE = 1;
+    public static final int HUNGRY = 2;
+    public static final int REPRODUCING = 4;
+
+    private static final int PAGE_BITS = 14;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle FLOATS = MethodHandles.arrayElementVarHandle(float[].class);
+
+    private static final class Page {
+        final int[] ids = new int[PAGE_SIZE];
+        final byte[] types = new byte[PAGE_SIZE];
+        final int[] meals = new int[PAGE_SIZE];
+        final byte[] flags = new byte[PAGE_SIZE];
+        final long[] nextWake = new long[PAGE_SIZE];
+        final float[] xs = new float[PAGE_SIZE]; // SpatialWorld coordinates, NaN until placed
+        final float[] ys = new float[PAGE_SIZE];
+    }
+
+    private volatile Page[] pages = new Page[0];
+    private volatile int highWater = 0; // slots below this have been handed out at least once
+
+    // allocation and release only, reads and field writes never take it
+    private final ReentrantLock lock = new ReentrantLock();
+    private int[] freeSlots = new int[64];
+    private int freeCount = 0;
+
+    @FunctionalInterface
+    public interface SlotVisitor {
+        void visit(int slot, int id, byte type, int meals, int flags);
+    }
+
+    public int allocate(int id, byte type) {
+        int slot;
+        lock.lock();
+        try {
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                slot = highWater;
+                if ((slot >>> PAGE_BITS) >= pages.length) addPage();
+                // scans may now reach the slot, but they skip it until its ALIVE flag is published below
+                highWater = slot + 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+        Page page = page(slot);
+        int i = slot & PAGE_MASK;
+        page.ids[i] = id;
+        page.meals[i] = 0;
+        page.nextWake[i] = -1;
+        page.xs[i] = Float.NaN;
+        page.ys[i] = Float.NaN;
+        BYTES.setRelease(page.types, i, type);
+        // flags last: a scan only trusts a slot once ALIVE is visible
+        BYTES.setRelease(page.flags, i, (byte) (ALIVE | HUNGRY));
+        return slot;
+    }
+
+    private void addPage() {
+        Page[] grown = new Page[pages.length + 1];
+        System.arraycopy(pages, 0, grown, 0, pages.length);
+        grown[pages.length] = new Page();
+        pages = grown;
+    }
+
+    // the slot's owner is done with it, the next birth may take it
+    public void release(int slot) {
+        Page page = page(slot);
+        int i = slot & PAGE_MASK;
+        BYTES.setRelease(page.flags, i, (byte) 0);
+        BYTES.setRelease(page.types, i, FREE);
+        lock.lock();
+        try {
+            if (freeCount == freeSlots.length) {
+                int[] grown = new int[freeSlots.length * 2];
+                System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+                freeSlots = grown;
+            }
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Page page(int slot) {
+        return pages[slot >>> PAGE_BITS];
+    }
+
+    public int id(int slot) { return (int) INTS.getAcquire(page(slot).ids, slot & PAGE_MASK); }
+    public byte type(int slot) { return (byte) BYTES.getAcquire(page(slot).types, slot & PAGE_MASK); }
+    public int meals(int slot) { return (int) INTS.getAcquire(page(slot).meals, slot & PAGE_MASK); }
+    public int flags(int slot) { return (byte) BYTES.getAcquire(page(slot).flags, slot & PAGE_MASK) & 0xFF; }
+    public long nextWake(int slot) { return (long) LONGS.getAcquire(page(slot).nextWake, slot & PAGE_MASK); }
+    public float x(int slot) { return (float) FLOATS.getAcquire(page(slot).xs, slot & PAGE_MASK); }
+    public float y(int slot) { return (float) FLOATS.getAcquire(page(slot).ys, slot & PAGE_MASK); }
+
+    public boolean hasFlag(int slot, int flag) { return (flags(slot) & flag) != 0; }
+
+    public void setMeals(int slot, int meals) { INTS.setRelease(page(slot).meals, slot & PAGE_MASK, meals); }
+    public int incrementMeals(int slot) { return (int) INTS.getAndAddRelease(page(slot).meals, slot & PAGE_MASK, 1) + 1; }
+    public void setNextWake(int slot, long at) { LONGS.setRelease(page(slot).nextWake, slot & PAGE_MASK, at); }
+
+    // only the cell itself moves, a reader may see x and y from two different steps, which is harmless
+    public void setPosition(int slot, float x, float y) {
+        Page page = page(slot);
+        int i = slot & PAGE_MASK;
+        FLOATS.setRelease(page.xs, i, x);
+        FLOATS.setRelease(page.ys, i, y);
+    }
+
+    // flags of one slot can be written from two threads (a cell and its mating partner), so they're atomic bit ops
+    public void setFlag(int slot, int flag, boolean on) {
+        byte[] flags = page(slot).flags;
+        int i = slot & PAGE_MASK;
+        if (on) BYTES.getAndBitwiseOrRelease(flags, i, (byte) flag);
+        else BYTES.getAndBitwiseAndRelease(flags, i, (byte) ~flag);
+    }
+
+    // true only for the caller that flipped ALIVE off
+    public boolean clearAlive(int slot) {
+        byte before = (byte) BYTES.getAndBitwiseAnd(page(slot).flags, slot & PAGE_MASK, (byte) ~ALIVE);
+        return (before & ALIVE) != 0;
+    }
+
+    // sequential scan over every live slot, page by page
+    public void forEachAlive(SlotVisitor visitor) {
+        int end = highWater; // read before pages: every slot below it already has its page
+        Page[] snapshot = pages;
+        for (int p = 0; p < snapshot.length && (p << PAGE_BITS) < end; p++) {
+            Page page = snapshot[p];
+            int limit = Math.min(PAGE_SIZE, end - (p << PAGE_BITS));
+            for (int i = 0; i < limit; i++) {
+                int f = (byte) BYTES.getAcquire(page.flags, i) & 0xFF;
+                if ((f & ALIVE) == 0) continue;
+                visitor.visit((p << PAGE_BITS) | i, page.ids[i], page.types[i], page.meals[i], f);
+            }
+        }
+    }
+
+    public int capacity() { return pages.length * PAGE_SIZE; }
+    public int highWater() { return highWater; }
+}
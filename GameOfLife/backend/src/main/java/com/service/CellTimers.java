@@ -0,0 +1,130 @@
+package com.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+// sleeps and deadlines of the thread engines. instead of one kernel-timed sleep per cell, every pending timer sits
+// in one TimingWheel and a single timer thread advances virtual ms from the wall clock (divided by the speed),
+// unparking each tick's due cells in one batch. deadlines are virtual, so a speed change rescales every pending
+// timer at once, and a pause freezes them. between batches the timer thread parks until the next deadline (for
+// good when nothing is pending); an earlier timer, a speed change or a pause wakes it
+public final class CellTimers {
+    // "max" can't mean infinitely fast with a thread per cell: 10x, so the 100ms loop delay stays at the old 10ms floor
+    private static final double MIN_SCALE = 0.1;
+
+    public static final class Timer {
+        private final Thread thread;
+        private final long at;
+        private volatile boolean fired;
+        private volatile boolean cancelled;
+
+        private Timer(Thread thread, long at) {
+            this.thread = thread;
+            this.at = at;
+        }
+
+        public boolean isFired() { return fired; }
+
+        // the wheel drops it when its tick comes, nobody gets unparked
+        public void cancel() { cancelled = true; }
+    }
+
+    // virtual ms at wall time nanos, and how fast it runs from there. frozen while paused
+    private record Clock(long nanos, double exact, double scale, boolean frozen) {
+        long at(long wallNanos) {
+            return (long) (frozen ? exact : exact + (wallNanos - nanos) / 1_000_000.0 / scale);
+        }
+    }
+
+    private final ControlWord control;
+    private final TimingWheel<Timer> wheel = new TimingWheel<>(8192); // timer thread only
+    private final ConcurrentLinkedQueue<Timer> incoming = new ConcurrentLinkedQueue<>();
+    private final Thread driver;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean running = true;
+    private volatile Clock clock = new Clock(System.nanoTime(), 0, 1, false); // written by the timer thread only
+    private volatile long wakeAt = Long.MAX_VALUE; // virtual ms the timer thread parked until
+
+    public CellTimers(ControlWord control) {
+        this.control = control;
+        this.driver = Thread.ofPlatform().name("Cell-Timer").daemon().unstarted(this::loop);
+    }
+
+    // fires (unparks the calling thread) delayMs of virtual time from now
+    public Timer start(long delayMs) {
+        Timer timer = new Timer(Thread.currentThread(), now() + Math.max(1, delayMs));
+        incoming.add(timer);
+        // added before reading wakeAt, and the timer thread sets wakeAt before it looks at incoming: one of us sees it
+        if (started.compareAndSet(false, true)) driver.start();
+        else if (timer.at < wakeAt) LockSupport.unpark(driver);
+        return timer;
+    }
+
+    public void sleep(long delayMs) throws InterruptedException {
+        Timer timer = start(delayMs);
+        while (!timer.fired) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                timer.cancel();
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    public long now() { return clock.at(System.nanoTime()); }
+
+    // the speed or the pause changed, the timer thread settles the time so far at the old speed
+    public void wake() {
+        if (started.get()) LockSupport.unpark(driver);
+    }
+
+    public boolean shutdown(long timeoutMs) throws InterruptedException {
+        running = false;
+        driver.interrupt();
+        if (!started.get()) return true;
+        driver.join(Math.max(1, timeoutMs));
+        return !driver.isAlive();
+    }
+
+    private void fire(long at, Timer timer) {
+        if (timer.cancelled) return;
+        timer.fired = true;
+        LockSupport.unpark(timer.thread);
+    }
+
+    private void loop() {
+        // carries on from the clock start() has been reading since the constructor
+        Clock start = clock;
+        double exact = start.exact();
+        double scale = start.scale(); // of the wall time since lastNanos: wake() keeps a stretch to one speed
+        long lastNanos = start.nanos();
+        while (running) {
+            long wallNow = System.nanoTime();
+            exact += (wallNow - lastNanos) / 1_000_000.0 / scale;
+            lastNanos = wallNow;
+            long w = control.get();
+            if (ControlWord.isShutdown(w)) break;
+            if (ControlWord.isPaused(w)) {
+                clock = new Clock(wallNow, exact, scale, true);
+                control.awaitResume();
+                if (Thread.currentThread().isInterrupted()) break;
+                lastNanos = System.nanoTime(); // paused time does not count
+                continue; // resumed, start over with a fresh word
+            }
+            scale = Math.max(MIN_SCALE, ControlWord.timeScale(w));
+            clock = new Clock(wallNow, exact, scale, false);
+
+            Timer timer;
+            while ((timer = incoming.poll()) != null) wheel.schedule(timer.at, timer);
+            wheel.advance((long) exact, this::fire);
+
+            long next = wheel.nextDue(Long.MAX_VALUE);
+            wakeAt = next < 0 ? Long.MAX_VALUE : next;
+            if (!incoming.isEmpty()) continue; // a start() that came before wakeAt was set, it may not have woken us
+            if (next < 0) LockSupport.park(this);
+            else LockSupport.parkNanos(this, (long) Math.ceil((next - exact) * 1_000_000 * scale));
+            if (Thread.currentThread().isInterrupted()) break;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.service;
+
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// console lines from cell threads without the console lock: a record is a kind and two ints in a bounded
+// multi-producer ring (one sequence number per slot), one daemon thread formats and prints them in batches.
+// a producer does a CAS and three array stores, no allocation and no waiting. when the ring is full the record
+// is dropped and counted; the printer also keeps to a lines-per-second budget and says how much it left out
+public final class ConsoleLog {
+    public static final int FOOD_ADDED = 0; // a = amount, b = total after
+    public static final int FOOD_DROP = 1;  // a = dead cell id, b = amount
+    public static final int TEARDOWN_SLOW = 2; // a = timeout ms, b = 0 cell tasks / 1 simulation threads
+    public static final int FLUSH_FAILED = 3; // a = failed flushes so far, b = records waiting
+    private static final int KINDS = 4;
+
+    private static final int CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int mask = CAPACITY - 1;
+    // slot i is free for the producer at position p when sequences[i] == p, readable by the printer when p + 1
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final int[] kinds = new int[CAPACITY];
+    private final int[] as = new int[CAPACITY];
+    private final int[] bs = new int[CAPACITY];
+    private final AtomicLong tail = new AtomicLong(0);
+    private long head = 0; // printer thread only
+
+    private final PrintStream out;
+    // 1 in sampling[kind] records of a kind is kept, the rest never reach the ring
+    private final int[] sampling = new int[KINDS];
+    private volatile int linesPerSecond = 1000;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder printed = new LongAdder();
+
+    private static final class Stdout {
+        static final ConsoleLog INSTANCE = new ConsoleLog(System.out, "sim-console-log");
+    }
+
+    // the process-wide log on System.out, its printer starts on first use
+    public static ConsoleLog stdout() {
+        return Stdout.INSTANCE;
+    }
+
+    public ConsoleLog(PrintStream out, String threadName) {
+        this.out = out;
+        for (int i = 0; i < CAPACITY; i++) sequences.set(i, i);
+        for (int i = 0; i < KINDS; i++) sampling[i] = 1;
+        Thread.ofPlatform().name(threadName).daemon().start(this::printLoop);
+    }
+
+    // keep one in oneIn records of this kind (1 = all of them)
+    public void setSampling(int kind, int oneIn) {
+        sampling[kind] = Math.max(1, oneIn);
+    }
+
+    public void setRateLimit(int linesPerSecond) {
+        this.linesPerSecond = Math.max(1, linesPerSecond);
+    }
+
+    public void foodAdded(int amount, int total) {
+        offer(FOOD_ADDED, amount, total);
+    }
+
+    public void foodDropped(int deadCellId, int amount) {
+        offer(FOOD_DROP, deadCellId, amount);
+    }
+
+    // killAll/stopAll gave up waiting with something still running
+    public void teardownSlow(long timeoutMs, boolean simulationThreads) {
+        offer(TEARDOWN_SLOW, (int) Math.min(Integer.MAX_VALUE, timeoutMs), simulationThreads ? 1 : 0);
+    }
+
+    // the write-behind couldn't reach the database, it retries on the next flush
+    public void flushFailed(long failures, int pending) {
+        offer(FLUSH_FAILED, (int) Math.min(Integer.MAX_VALUE, failures), pending);
+    }
+
+    private void offer(int kind, int a, int b) {
+        int oneIn = sampling[kind];
+        if (oneIn > 1 && ThreadLocalRandom.current().nextInt(oneIn) != 0) return;
+        long pos = tail.get();
+        int slot;
+        while (true) {
+            slot = (int) pos & mask;
+            long diff = sequences.getAcquire(slot) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+                pos = tail.get();
+            } else if (diff < 0) {
+                // the printer hasn't freed this slot since the last lap
+                dropped.increment();
+                return;
+            } else {
+                pos = tail.get();
+            }
+        }
+        kinds[slot] = kind;
+        as[slot] = a;
+        bs[slot] = b;
+        sequences.setRelease(slot, pos + 1);
+    }
+
+    private void printLoop() {
+        StringBuilder batch = new StringBuilder(16 * 1024);
+        long windowStart = System.nanoTime();
+        int windowLines = 0;
+        long windowSuppressed = 0;
+        long reportedDrops = 0;
+        while (true) {
+            int taken = 0;
+            int slot;
+            while (sequences.getAcquire(slot = (int) head & mask) == head + 1) {
+                if (windowLines < linesPerSecond) {
+                    format(batch, kinds[slot], as[slot], bs[slot]);
+                    windowLines++;
+                } else {
+                    windowSuppressed++;
+                }
+                sequences.setRelease(slot, head + CAPACITY);
+                head++;
+                if (++taken == CAPACITY) break; // let the window roll under a steady flood
+            }
+
+            long now = System.nanoTime();
+            if (now - windowStart >= WINDOW_NANOS) {
+                if (windowSuppressed > 0) {
+                    batch.append("... ").append(windowSuppressed).append(" log lines over the limit of ")
+                            .append(linesPerSecond).append("/s left out\n");
+                    suppressed.add(windowSuppressed);
+                }
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    batch.append("... ").append(drops - reportedDrops).append(" log records dropped, ring full\n");
+                    reportedDrops = drops;
+                }
+                windowStart = now;
+                windowLines = 0;
+                windowSuppressed = 0;
+            }
+
+            if (batch.length() > 0) {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+            }
+            if (taken == 0) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private void format(StringBuilder batch, int kind, int a, int b) {
+        switch (kind) {
+            case FOOD_ADDED -> batch.append("Added ").append(a).append(" food. Total: ").append(b);
+            case FOOD_DROP -> batch.append("Cell ").append(a).append(" died and dropped ").append(b).append(" food.");
+            case TEARDOWN_SLOW -> batch.append(b == 0 ? "Cell tasks" : "Simulation threads")
+                    .append(" still running after ").append(a).append(" ms of teardown");
+            case FLUSH_FAILED -> batch.append("Write-behind flush failed (").append(a).append(" so far, ").append(b)
+                    .append(" records waiting), retrying in the next interval");
+            default -> batch.append("unknown log record ").append(kind);
+        }
+        batch.append('\n');
+        printed.increment();
+    }
+
+    public long getDropped() { return dropped.sum(); }
+    public long getSuppressed() { return suppressed.sum(); }
+    public long getPrinted() { return printed.sum(); }
+}
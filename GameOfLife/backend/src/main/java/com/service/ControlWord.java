@@ -0,0 +1,106 @@
+package com.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// pause, speed and shutdown of one simulation packed into a single long, so the check every cell makes on every
+// loop iteration is one volatile read and a bit test. every change bumps the version, a reader that got the
+// same version twice knows nothing changed in between.
+// layout: bit 0 paused, bit 1 shutdown, bits 2-3 speed, bits 32-63 version
+public class ControlWord {
+    public static final int NORMAL = 0;
+    public static final int FAST = 1;
+    public static final int SLOW = 2;
+    public static final int MAX = 3;
+
+    private static final long PAUSED = 1;
+    private static final long SHUTDOWN = 2;
+    private static final int SPEED_SHIFT = 2;
+    private static final long SPEED_MASK = 3L << SPEED_SHIFT;
+    private static final long VERSION_ONE = 1L << 32;
+
+    // ms of wall time per virtual ms, indexed by speed; a primitive array instead of a boxed Double per read
+    private static final double[] SCALES = {1.0, 0.2, 2.0, 0.0};
+
+    private final AtomicLong word = new AtomicLong(0);
+    // a thread parked in awaitResume. queued is true from its own add until the poll that wakes it, so it is in
+    // parked at most once however often it wakes up
+    private static final class Waiter {
+        final Thread thread = Thread.currentThread();
+        volatile boolean queued;
+    }
+
+    // threads parked in awaitResume, unparked together when the pause ends
+    private final ConcurrentLinkedQueue<Waiter> parked = new ConcurrentLinkedQueue<>();
+
+    public long get() { return word.get(); }
+
+    public static boolean isPaused(long w) { return (w & PAUSED) != 0; }
+    public static boolean isShutdown(long w) { return (w & SHUTDOWN) != 0; }
+    public static int speed(long w) { return (int) ((w & SPEED_MASK) >>> SPEED_SHIFT); }
+    public static double timeScale(long w) { return SCALES[speed(w)]; }
+    public static int version(long w) { return (int) (w >>> 32); }
+
+    public static int speedOf(String speed) {
+        if (speed.equals("max")) return MAX;
+        if (speed.equals("fast")) return FAST;
+        if (speed.equals("slow")) return SLOW;
+        return NORMAL;
+    }
+
+    public long setPaused(boolean paused) {
+        long w = update(PAUSED, paused ? PAUSED : 0);
+        if (!paused) wakeParked();
+        return w;
+    }
+
+    public long setSpeed(int speed) {
+        return update(SPEED_MASK, (long) speed << SPEED_SHIFT);
+    }
+
+    // one-way, also releases everyone waiting out a pause
+    public long shutdown() {
+        long w = update(SHUTDOWN, SHUTDOWN);
+        wakeParked();
+        return w;
+    }
+
+    private long update(long mask, long bits) {
+        while (true) {
+            long w = word.get();
+            long next = ((w & ~mask) | bits) + VERSION_ONE;
+            if (word.compareAndSet(w, next)) return next;
+        }
+    }
+
+    // slow path of the safepoint check, only taken while paused. an interrupt ends the wait with the flag still set
+    public void awaitResume() {
+        Waiter me = new Waiter();
+        // registered before reading the word: a resume after this read finds us in the queue
+        me.queued = true;
+        parked.add(me);
+        long w = word.get();
+        while (isPaused(w) && !isShutdown(w) && !me.thread.isInterrupted()) {
+            LockSupport.park(this);
+            w = word.get();
+            // still queued after a setSpeed or a spurious wake-up, nothing to do. polled out by a resume that was
+            // followed by another pause: register again, then read the word again
+            if (!me.queued && isPaused(w)) {
+                me.queued = true;
+                parked.add(me);
+                w = word.get();
+            }
+        }
+        // resumed before a resume got to us, or interrupted: don't leave the entry behind for the next one
+        if (me.queued) parked.remove(me);
+    }
+
+    private void wakeParked() {
+        Waiter t;
+        while ((t = parked.poll()) != null) {
+            t.queued = false;
+            LockSupport.unpark(t.thread);
+        }
+    }
+}
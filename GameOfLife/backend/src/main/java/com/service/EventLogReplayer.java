@@ -0,0 +1,141 @@
+package com.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// rebuilds the state of a simulation at any logical time from its SimulationEventLog, one sequential pass
+public class EventLogReplayer {
+    private static final int READ_CHUNK = 64 * 1024;
+    private static final int MAX_RECORD = 1 + 10 + 5 + 5; // type, time delta, id, arg
+
+    public record ReplayedCell(int id, boolean asexual, int mealsEaten) {}
+
+    public record ReplayState(Long seed, long time, long events, int availableFood,
+                              int aliveAsexual, int aliveSexual, int divisions, int reproductions,
+                              int starvations, List<ReplayedCell> cells) {}
+
+    public static ReplayState replay(Path path, long upToTime) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return replay(channel, path, upToTime);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Corrupt event log, truncated record: " + path);
+        }
+    }
+
+    // streams the file through one READ_CHUNK buffer, however long the run was
+    private static ReplayState replay(FileChannel channel, Path path, long upToTime) throws IOException {
+        ByteBuffer in = ByteBuffer.allocate(READ_CHUNK).flip(); // empty, refill reads behind it
+        boolean eof = refill(channel, in);
+        if (in.remaining() < 14 || in.getInt() != SimulationEventLog.MAGIC) {
+            throw new IllegalArgumentException("Not a simulation event log: " + path);
+        }
+        byte version = in.get();
+        if (version != SimulationEventLog.VERSION) throw new IllegalArgumentException("Unsupported event log version " + version);
+        boolean seeded = in.get() == 1;
+        long seed = in.getLong();
+
+        // id -> {asexual ? 1 : 0, meals eaten}
+        Map<Integer, int[]> alive = new HashMap<>();
+        long time = 0, events = 0;
+        long food = 0;
+        int divisions = 0, reproductions = 0, starvations = 0;
+
+        long offset = 0; // of the buffer's first byte in the file
+        while (true) {
+            if (in.remaining() < MAX_RECORD && !eof) {
+                offset += in.position();
+                eof = refill(channel, in);
+            }
+            if (!in.hasRemaining()) break;
+            long mark = offset + in.position();
+            byte type = in.get();
+            long t = time + getVarLong(in);
+            if (t > upToTime) break;
+            time = t;
+            int cellId = (int) getVarLong(in);
+            int arg = (int) getVarLong(in);
+            events++;
+
+            switch (type) {
+                case SimulationEventLog.BIRTH_ASEXUAL -> alive.put(cellId, new int[] {1, 0});
+                case SimulationEventLog.BIRTH_SEXUAL -> alive.put(cellId, new int[] {0, 0});
+                case SimulationEventLog.EAT -> {
+                    food--;
+                    int[] c = alive.get(cellId);
+                    if (c != null) c[1]++;
+                }
+                case SimulationEventLog.STARVE -> {
+                    starvations++;
+                    alive.remove(cellId);
+                }
+                case SimulationEventLog.KILLED -> alive.remove(cellId);
+                case SimulationEventLog.DIVIDE -> {
+                    divisions++;
+                    alive.remove(cellId);
+                }
+                case SimulationEventLog.MATE -> reproductions++;
+                case SimulationEventLog.MEALS_RESET -> {
+                    int[] c = alive.get(cellId);
+                    if (c != null) c[1] = 0;
+                }
+                case SimulationEventLog.FOOD_DROP, SimulationEventLog.FOOD_ADDED -> food += arg;
+                case SimulationEventLog.CLEARED -> {
+                    // everything clearBoard resets
+                    alive.clear();
+                    food = 0;
+                    divisions = 0;
+                    reproductions = 0;
+                    starvations = 0;
+                }
+                default -> throw new IllegalArgumentException("Corrupt event log, unknown type " + type + " at " + mark);
+            }
+        }
+
+        List<ReplayedCell> cells = new ArrayList<>(alive.size());
+        int aliveAsexual = 0, aliveSexual = 0;
+        for (Map.Entry<Integer, int[]> e : alive.entrySet()) {
+            boolean asexual = e.getValue()[0] == 1;
+            if (asexual) aliveAsexual++;
+            else aliveSexual++;
+            cells.add(new ReplayedCell(e.getKey(), asexual, e.getValue()[1]));
+        }
+        cells.sort((a, b) -> Integer.compare(a.id(), b.id()));
+        return new ReplayState(seeded ? seed : null, time, events, (int) Math.max(0, food), aliveAsexual, aliveSexual,
+                divisions, reproductions, starvations, cells);
+    }
+
+    // moves what's left to the front and reads behind it, true once the file has nothing more
+    private static boolean refill(FileChannel channel, ByteBuffer in) throws IOException {
+        in.compact();
+        try {
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) return true;
+            }
+            return false;
+        } finally {
+            in.flip();
+        }
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.service;
+
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL,
+    EVENT,
+    // event engine without a scheduler thread, driven by CellManager.runHeadless (batch runs)
+    HEADLESS,
+    // spatial world only: regions stepped in parallel ticks on a ForkJoinPool
+    PARALLEL,
+    // parallel engine without a driver thread, driven by CellManager.runHeadless
+    PARALLEL_HEADLESS;
+
+    public boolean isParallel() {
+        return this == PARALLEL || this == PARALLEL_HEADLESS;
+    }
+
+    public CellEngine createEngine(CellManager manager) {
+        return switch (this) {
+            case PLATFORM -> new ThreadEngine(false);
+            case VIRTUAL -> new ThreadEngine(true);
+            case EVENT -> new TickEngine(manager, true);
+            case HEADLESS -> new TickEngine(manager, false);
+            case PARALLEL -> new ParallelTickEngine(manager, true);
+            case PARALLEL_HEADLESS -> new ParallelTickEngine(manager, false);
+        };
+    }
+
+    public static ExecutionMode fromString(String mode) {
+        if (mode == null) return PLATFORM;
+        if (mode.equalsIgnoreCase("virtual")) return VIRTUAL;
+        if (mode.equalsIgnoreCase("event")) return EVENT;
+        if (mode.equalsIgnoreCase("parallel")) return PARALLEL;
+        return PLATFORM;
+    }
+}
@@ -0,0 +1,35 @@
+package com.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// fixed power-of-two buckets from 1 us to ~16.8 s plus an overflow bucket. recording is one LongAdder bump
+// per bucket and one for the sum, no lock and no allocation, so cells on any number of threads can share it
+public class LatencyHistogram {
+    private static final int BOUNDED = 25; // bucket i holds durations up to 2^i us
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDED + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        long micros = (Math.max(1, nanos) - 1) / 1000;
+        int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        buckets[Math.min(bucket, BOUNDED)].increment();
+        sumNanos.add(nanos);
+    }
+
+    // the last bucket is the overflow one, its bound is +Inf
+    public int bucketCount() { return buckets.length; }
+    public double upperBoundSeconds(int bucket) { return bucket < BOUNDED ? (1L << bucket) / 1e6 : Double.POSITIVE_INFINITY; }
+    public long count(int bucket) { return buckets[bucket].sum(); }
+    public double sumSeconds() { return sumNanos.sum() / 1e9; }
+
+    public long total() {
+        long total = 0;
+        for (LongAdder bucket : buckets) total += bucket.sum();
+        return total;
+    }
+}
@@ -0,0 +1,72 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.model.SexualCell;
+
+// lock-free "ready to mate" queues. pairing is a CAS on both cells' mating state, so a cell can only ever be claimed once.
+// one queue per region in a spatial world, where a cell only looks for partners in the regions around it
+public class MatingRegistry {
+    private final List<ConcurrentLinkedQueue<SexualCell>> ready;
+    private final int[][] neighbourhoods; // null = a single global queue
+
+    public MatingRegistry() {
+        this(null);
+    }
+
+    public MatingRegistry(SpatialWorld world) {
+        int regions = world != null ? world.regions() : 1;
+        List<ConcurrentLinkedQueue<SexualCell>> queues = new ArrayList<>();
+        for (int i = 0; i < regions; i++) queues.add(new ConcurrentLinkedQueue<>());
+        this.ready = List.copyOf(queues);
+        if (world != null) {
+            neighbourhoods = new int[regions][];
+            for (int r = 0; r < regions; r++) neighbourhoods[r] = world.neighbourhood(r);
+        } else {
+            neighbourhoods = null;
+        }
+    }
+
+    // region is ignored without a world
+    public void offer(SexualCell cell, int region) {
+        if (cell.markReadyToMate()) queue(region).offer(cell);
+    }
+
+    private ConcurrentLinkedQueue<SexualCell> queue(int region) {
+        return ready.get(neighbourhoods != null ? region : 0);
+    }
+
+    public SexualCell claimPartner(SexualCell requester, int region) {
+        // claim ourselves first so two searching cells can't pick each other at the same time
+        if (!requester.tryClaim()) return null;
+
+        if (neighbourhoods == null) {
+            SexualCell partner = claimFrom(ready.get(0), requester);
+            if (partner != null) return partner;
+        } else {
+            for (int r : neighbourhoods[region]) {
+                SexualCell partner = claimFrom(ready.get(r), requester);
+                if (partner != null) return partner;
+            }
+        }
+
+        requester.releaseClaim();
+        queue(region).offer(requester);
+        return null;
+    }
+
+    private static SexualCell claimFrom(ConcurrentLinkedQueue<SexualCell> queue, SexualCell requester) {
+        SexualCell candidate;
+        while ((candidate = queue.poll()) != null) {
+            if (candidate != requester && candidate.tryClaim()) return candidate;
+            // otherwise stale: dead, already mated, or searching itself (it re-offers itself if it stays unpaired)
+        }
+        return null;
+    }
+
+    public void clear() {
+        for (ConcurrentLinkedQueue<SexualCell> queue : ready) queue.clear();
+    }
+}
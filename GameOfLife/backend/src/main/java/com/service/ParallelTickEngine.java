@@ -0,0 +1,467 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.model.Cell;
+import com.model.SexualCell;
+
+// tick-driven engine for the spatial world. every region has its own wheel, and each tick steps the busy regions
+// in parallel on a ForkJoinPool, a run of neighbouring regions per task and a few tasks per worker. while stepping,
+// a region only touches its own cells, its own food stripe and mating queue, and its own hand-off lists: events go
+// into the region's batch, cells that found no food, partner searches, births and food drops into typed lists.
+// the merge then feeds the hungry from the regions around them one colour at a time (regions of a colour are three
+// apart, so they never share a stripe and feed in parallel) and runs searches, births and drops in region order.
+// nothing depends on how regions were split into tasks, so a seeded run comes out the same on 1 core or 32
+public class ParallelTickEngine implements CellEngine {
+    // the cells' shortest delay (LOOP_DELAY, FOOD_RETRY), a wake-up in between waits for the next tick
+    static final long TICK_MS = 100;
+    private static final long MAX_PARK_MS = 50;
+    // the regions' wheels count ticks, not ms: 25.6 s per revolution, one bucket per tick
+    private static final int WHEEL_SLOTS = 256;
+    // tasks per worker, so one crowded stretch of the board doesn't leave the other workers idle
+    private static final int TASKS_PER_WORKER = 4;
+    // fewer hungry cells than this in a colour are fed on the merging thread, forking costs more than they do
+    private static final int FORK_FEEDS = 1024;
+
+    // shared by every parallel simulation so they don't each bring a pool's worth of threads
+    private static final ForkJoinPool WORKERS = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        t.setName("Cell-Worker-" + t.getPoolIndex());
+        return t;
+    }, null, false);
+
+    // the tick a wake-up at virtual ms at is due in
+    private static long tickOf(long at) {
+        return Math.ceilDiv(at, TICK_MS);
+    }
+
+    private static int parity(long tick) {
+        return (int) (tickOf(tick) & 1);
+    }
+
+    // cells that wandered out of a region during one tick, each with the region it wandered into. the new region
+    // takes them over the next tick; it can't go by their position then, a neighbour may have stepped them since
+    private static final class Handover {
+        private final List<Cell> cells = new ArrayList<>();
+        private int[] to = new int[64];
+        private long tick = -1;
+
+        void add(Cell cell, int region) {
+            if (cells.size() == to.length) to = Arrays.copyOf(to, to.length * 2);
+            to[cells.size()] = region;
+            cells.add(cell);
+        }
+
+        void reset(long tick) {
+            cells.clear();
+            this.tick = tick;
+        }
+    }
+
+    // one region of the world. only whoever works on it touches its wheel and lists, the merge drains them
+    final class Region {
+        private final int index;
+        private final int[] neighbourhood;
+        private final TimingWheel<Cell> wheel = new TimingWheel<>(WHEEL_SLOTS);
+        private final SimulationEventLog.Batch events = new SimulationEventLog.Batch();
+        private final List<Cell> hungry = new ArrayList<>();          // nothing left in this region's stripe
+        private final List<SexualCell> searching = new ArrayList<>(); // partner searches, answered in the merge
+        private final List<Cell> parents = new ArrayList<>();         // births in pairs, the second null for a division
+        private final List<Cell> dead = new ArrayList<>();            // food drops
+        private final List<Cell> retired = new ArrayList<>(); // released next tick, births still read their parent's slot
+        // by tick parity: the region fills one while its neighbours pick theirs out of the other, filled the tick before
+        private final List<Handover> moved = List.of(new Handover(), new Handover());
+        private boolean expecting; // a neighbour handed cells over last tick, some may be ours
+        private final TimingWheel.Handler<Cell> stepper = this::step;
+        private long tick;
+        private long steps;
+
+        Region(int index, int[] neighbourhood) {
+            this.index = index;
+            this.neighbourhood = neighbourhood;
+        }
+
+        int index() { return index; }
+
+        void record(byte type, int cellId, int arg) { events.add(type, cellId, arg); }
+
+        void hungry(Cell cell) { hungry.add(cell); }
+
+        void search(SexualCell requester) { searching.add(requester); }
+
+        void born(Cell parent1, Cell parent2) {
+            parents.add(parent1);
+            parents.add(parent2);
+        }
+
+        void died(Cell cell) { dead.add(cell); }
+
+        private boolean isBusy() {
+            return wheel.size() > 0 || expecting || !retired.isEmpty();
+        }
+
+        private void run() {
+            Region outer = current.get();
+            current.set(this);
+            try {
+                tick = clock;
+                for (Cell cell : retired) cell.retire();
+                retired.clear();
+                int parity = parity(tick);
+                moved.get(parity).reset(tick);
+                if (expecting) admitMoved(parity ^ 1);
+                wheel.advance(tickOf(tick), stepper);
+            } finally {
+                current.set(outer);
+            }
+        }
+
+        // the cells the neighbours handed over last tick, at the wake-ups they were given then (or in the feed)
+        private void admitMoved(int parity) {
+            expecting = false;
+            for (int r : neighbourhood) {
+                Handover from = regions[r].moved.get(parity);
+                if (from.tick != tick - TICK_MS) continue;
+                for (int i = 0; i < from.cells.size(); i++) {
+                    Cell cell = from.cells.get(i);
+                    if (from.to[i] == index) wheel.schedule(tickOf(cell.getNextWake()), cell);
+                }
+            }
+        }
+
+        private void step(long due, Cell cell) {
+            // superseded: fed in a merge and rescheduled, or already retired
+            if (tickOf(cell.getNextWake()) != due) return;
+            steps++;
+            long wakeAt = cell.step(tick);
+            if (wakeAt < 0) {
+                retired.add(cell);
+                return;
+            }
+            cell.setNextWake(wakeAt);
+            int region = manager.regionOf(cell);
+            if (region == index) wheel.schedule(tickOf(wakeAt), cell);
+            else moved.get(parity(tick)).add(cell, region);
+        }
+
+        // merge, one colour at a time: no other region touches the stripes around this one meanwhile
+        private void feed() {
+            Region outer = current.get();
+            current.set(this);
+            try {
+                for (Cell cell : hungry) {
+                    if (!cell.isWaitingForFood()) continue;
+                    // nothing around here is refilled before the drops, the first miss is a miss for the rest too
+                    if (!manager.eatAround(index)) break;
+                    long wakeAt = cell.fed(tick);
+                    if (wakeAt < 0) continue;
+                    cell.setNextWake(wakeAt); // its retry entry is stale from here on
+                    // one that wandered off is on its way over and arrives with this wake-up
+                    if (manager.regionOf(cell) == index) wheel.schedule(tickOf(wakeAt), cell);
+                }
+                hungry.clear();
+            } finally {
+                current.set(outer);
+            }
+        }
+    }
+
+    // splits a run of regions in halves down to grain regions per task, each task works through its own in order.
+    // RecursiveAction is Serializable, these never are: nothing serializes a running tick
+    private static final class ForEachRegion extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Region[] regions;
+        private final int lo, hi, grain;
+        private final transient Consumer<Region> work;
+
+        ForEachRegion(Region[] regions, int lo, int hi, int grain, Consumer<Region> work) {
+            this.regions = regions;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                for (int i = lo; i < hi; i++) work.accept(regions[i]);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ForEachRegion(regions, lo, mid, grain, work), new ForEachRegion(regions, mid, hi, grain, work));
+        }
+    }
+
+    private final CellManager manager;
+    private final Region[] regions;
+    private final Region[][] colours; // by (x % 3, y % 3), in region order
+    private final Region[] busy;
+    private final Region[] feeding;
+    private final ThreadLocal<Region> current = new ThreadLocal<>();
+    private final ConcurrentLinkedQueue<Cell> arrivals = new ConcurrentLinkedQueue<>();
+    private final boolean threaded;
+    private final Thread driver;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    // held while ticks run, so cancelCells can wait for the one under way to finish
+    private final ReentrantLock stepping = new ReentrantLock();
+    private volatile boolean running = true;
+
+    private long nextTick = 0;
+    private int scheduled = 0; // cells in all wheels or on their way to one, as of the last merge
+    private volatile long clock = 0; // the tick being run
+    private volatile long cellUpdates = 0;
+
+    public ParallelTickEngine(CellManager manager, boolean threaded) {
+        SpatialWorld world = manager.getWorld();
+        if (world == null) throw new IllegalArgumentException("parallel mode needs a spatial world");
+        this.manager = manager;
+        this.threaded = threaded;
+        this.regions = new Region[world.regions()];
+        for (int r = 0; r < regions.length; r++) regions[r] = new Region(r, world.neighbourhood(r));
+        this.colours = new Region[9][];
+        for (int c = 0; c < colours.length; c++) {
+            List<Region> colour = new ArrayList<>();
+            for (int r = 0; r < regions.length; r++) {
+                int x = r % world.side(), y = r / world.side();
+                if ((y % 3) * 3 + x % 3 == c) colour.add(regions[r]);
+            }
+            colours[c] = colour.toArray(new Region[0]);
+        }
+        this.busy = new Region[regions.length];
+        this.feeding = new Region[regions.length];
+        this.driver = Thread.ofPlatform().name("Cell-Scheduler").daemon().unstarted(this::loop);
+    }
+
+    // the region the calling thread is stepping or feeding, null anywhere else
+    Region current() {
+        return current.get();
+    }
+
+    @Override
+    public void launch(Cell cell) {
+        arrivals.add(cell);
+        if (!threaded) return;
+        if (started.compareAndSet(false, true)) driver.start();
+        else LockSupport.unpark(driver);
+    }
+
+    // killed cells are already marked dead, each is retired at its next wake-up without stepping. what's left is
+    // the tick being run right now, which may still have seen them alive: wait for its boundary
+    @Override
+    public boolean cancelCells(long timeoutMs) throws InterruptedException {
+        return awaitPaused(timeoutMs);
+    }
+
+    // the scheduler checks the pause before every tick and doesn't take the lock again until it is resumed
+    @Override
+    public boolean awaitPaused(long timeoutMs) throws InterruptedException {
+        if (!stepping.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) return false;
+        stepping.unlock();
+        return true;
+    }
+
+    @Override
+    public boolean shutdown(long timeoutMs) throws InterruptedException {
+        running = false;
+        driver.interrupt();
+        if (!started.get()) return true;
+        driver.join(Math.max(1, timeoutMs));
+        return !driver.isAlive();
+    }
+
+    @Override
+    public long now() {
+        return clock;
+    }
+
+    @Override
+    public long cellUpdates() {
+        return cellUpdates;
+    }
+
+    private boolean hasWork() {
+        return scheduled > 0 || !arrivals.isEmpty();
+    }
+
+    // new cells (born in the last merge or added from outside) start at the next tick in the region they stand in,
+    // restored ones at the wake-up they brought from the snapshot
+    private void admitArrivals(long tick) {
+        Cell cell;
+        while ((cell = arrivals.poll()) != null) {
+            long wakeAt = Math.max(tick, cell.getNextWake());
+            cell.setNextWake(wakeAt);
+            regions[manager.regionOf(cell)].wheel.schedule(tickOf(wakeAt), cell);
+        }
+    }
+
+    // n regions, a few per task. batch runs and benchmarks call us from their own pool and pick the parallelism
+    // that way. returns the number of tasks
+    private int forEach(Region[] some, int n, Consumer<Region> work) {
+        boolean inPool = ForkJoinTask.inForkJoinPool();
+        int parallelism = (inPool ? ForkJoinTask.getPool() : WORKERS).getParallelism();
+        int tasks = Math.min(n, parallelism > 1 ? parallelism * TASKS_PER_WORKER : 1);
+        if (tasks <= 1) {
+            for (int i = 0; i < n; i++) work.accept(some[i]);
+            return tasks;
+        }
+        ForEachRegion all = new ForEachRegion(some, 0, n, Math.ceilDiv(n, tasks), work);
+        if (inPool) all.invoke();
+        else WORKERS.invoke(all);
+        return tasks;
+    }
+
+    private void runTick(long tick) {
+        clock = tick;
+        admitArrivals(tick);
+
+        int n = 0;
+        for (Region r : regions) {
+            if (r.isBusy()) busy[n++] = r;
+            else r.wheel.advance(tickOf(tick), r.stepper); // just moves an idle wheel's cursor along
+        }
+        SimulationEvents.ParallelTick event = new SimulationEvents.ParallelTick();
+        event.begin();
+        int tasks = forEach(busy, n, Region::run);
+        long mergeStart = System.nanoTime();
+        long feedNanos = feed(manager.getEventLog(), n);
+        long steps = merge(n);
+        if (event.shouldCommit()) {
+            event.regions = n;
+            event.tasks = tasks;
+            event.steps = steps;
+            event.mergeNanos = System.nanoTime() - mergeStart;
+            event.feedNanos = feedNanos;
+            event.commit();
+        }
+    }
+
+    // the regions' events in region order, then the hungry fed colour by colour, each colour's events after it.
+    // returns the time spent feeding
+    private long feed(SimulationEventLog log, int n) {
+        for (int i = 0; i < n; i++) flush(log, busy[i]);
+        long start = System.nanoTime();
+        for (Region[] colour : colours) {
+            int m = 0, hungry = 0;
+            for (Region r : colour) {
+                if (r.hungry.isEmpty()) continue;
+                feeding[m++] = r;
+                hungry += r.hungry.size();
+            }
+            if (hungry >= FORK_FEEDS) forEach(feeding, m, Region::feed);
+            else for (int i = 0; i < m; i++) feeding[i].feed();
+            for (int i = 0; i < m; i++) flush(log, feeding[i]);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void flush(SimulationEventLog log, Region r) {
+        if (r.events.isEmpty()) return;
+        if (log != null) log.append(r.events);
+        r.events.clear();
+    }
+
+    // the rest on this thread, in region order whatever order the tasks finished in: searches, births, food drops.
+    // returns the cells stepped this tick
+    private long merge(int n) {
+        for (int i = 0; i < n; i++) {
+            Region r = busy[i];
+            for (SexualCell requester : r.searching) manager.mate(requester);
+            r.searching.clear();
+        }
+        for (int i = 0; i < n; i++) {
+            List<Cell> parents = busy[i].parents;
+            for (int j = 0; j < parents.size(); j += 2) manager.reproduce(parents.get(j), parents.get(j + 1));
+            parents.clear();
+        }
+        for (int i = 0; i < n; i++) {
+            Region r = busy[i];
+            for (Cell cell : r.dead) manager.dropFood(cell);
+            r.dead.clear();
+        }
+        long steps = 0;
+        int parity = parity(clock);
+        for (int i = 0; i < n; i++) {
+            Region r = busy[i];
+            steps += r.steps;
+            r.steps = 0;
+            if (r.moved.get(parity).cells.isEmpty()) continue;
+            for (int neighbour : r.neighbourhood) regions[neighbour].expecting = true;
+        }
+        int pending = 0;
+        for (Region r : regions) {
+            pending += r.wheel.size() + r.retired.size();
+            Handover handover = r.moved.get(parity);
+            if (handover.tick == clock) pending += handover.cells.size();
+        }
+        scheduled = pending;
+        cellUpdates += steps;
+        return steps;
+    }
+
+    // ticks until extinction or the horizon on the calling thread, returns the last tick run
+    public long runHeadless(long horizon) {
+        stepping.lock();
+        try {
+            while (nextTick <= horizon && hasWork()) {
+                runTick(nextTick);
+                nextTick += TICK_MS;
+            }
+            return clock;
+        } finally {
+            stepping.unlock();
+        }
+    }
+
+    private void loop() {
+        double now = 0;
+        long lastNanos = System.nanoTime();
+        while (running) {
+            long control = manager.controlWord();
+            if (ControlWord.isShutdown(control)) break;
+            if (ControlWord.isPaused(control)) {
+                manager.checkPause();
+                lastNanos = System.nanoTime(); // paused time does not count as simulated time
+            }
+            if (Thread.currentThread().isInterrupted()) break;
+            if (ControlWord.isPaused(control)) continue; // resumed, start over with a fresh word
+
+            double scale = ControlWord.timeScale(control);
+            long wallNow = System.nanoTime();
+            if (scale > 0) now += (wallNow - lastNanos) / 1_000_000.0 / scale;
+            else if (hasWork()) now = Math.max(now, nextTick); // as fast as possible: one tick per round
+            lastNanos = wallNow;
+
+            // a pause stops at the next tick boundary, virtual time stays at the last tick run
+            stepping.lock();
+            try {
+                while (running && nextTick <= now) {
+                    if (ControlWord.isPaused(manager.controlWord())) {
+                        now = nextTick - TICK_MS;
+                        break;
+                    }
+                    runTick(nextTick);
+                    nextTick += TICK_MS;
+                }
+            } finally {
+                stepping.unlock();
+            }
+
+            if (scale <= 0 && hasWork()) continue;
+            long parkMs = scale > 0 ? Math.min(MAX_PARK_MS, (long) Math.ceil((nextTick - now) * scale)) : MAX_PARK_MS;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, parkMs)));
+        }
+    }
+}
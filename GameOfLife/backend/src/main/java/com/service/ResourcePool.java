@@ -1,50 +1,248 @@
 package com.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 
 public class ResourcePool {
-    private final Semaphore foodSemaphore;
-    private final AtomicInteger availableFood;
+    private static final int MAX_STRIPES = 64;
+
+    //food is split across stripes so eaters on different cores rarely touch the same semaphore
+    private final Semaphore[] stripes;
+    private final int mask;
+    private final LongAdder availableFood = new LongAdder();
+    private final AtomicInteger spreadCursor = new AtomicInteger(0);
+    // hungry threads parked until food shows up (or their starvation timer unparks them); one queue per region
+    // in a spatial world, where a drop only wakes the eaters that can reach it, one queue otherwise
+    private final List<ConcurrentLinkedQueue<Waiter>> waiters;
+    // spatial only: the stripes (regions) an eater at region r may take from, r first. null = any stripe
+    private final int[][] neighbourhoods;
+    // only set for seeded runs (batch, deterministic event mode), everything else uses ThreadLocalRandom
+    private final SplittableRandom random;
+    private volatile boolean logging = true;
 
     public ResourcePool(int initialFood) {
-        //semaphore to prevent thread starvation
-        this.foodSemaphore = new Semaphore(initialFood, true);
-        this.availableFood = new AtomicInteger(initialFood);
+        this(initialFood, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ResourcePool(int initialFood, int stripeCount) {
+        this(initialFood, stripeCount, null);
+    }
+
+    public ResourcePool(int initialFood, int stripeCount, SplittableRandom random) {
+        this(initialFood, stripeCount, random, null);
+    }
+
+    // food lives in the world's regions, one stripe each, and is only reachable from the regions around it
+    public ResourcePool(int initialFood, SpatialWorld world, SplittableRandom random) {
+        this(initialFood, world.regions(), random, world);
+    }
+
+    private ResourcePool(int initialFood, int stripeCount, SplittableRandom random, SpatialWorld world) {
+        this.random = random;
+        int n = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, MAX_STRIPES) * 2 - 1));
+        this.stripes = new Semaphore[n];
+        this.mask = n - 1;
+        //non-fair: a fair queue serializes every waiter, starvation is bounded by the starvation timer anyway
+        for (int i = 0; i < n; i++) stripes[i] = new Semaphore(0);
+        if (world != null) {
+            neighbourhoods = new int[n][];
+            for (int r = 0; r < n; r++) neighbourhoods[r] = world.neighbourhood(r);
+        } else {
+            neighbourhoods = null;
+        }
+        List<ConcurrentLinkedQueue<Waiter>> queues = new ArrayList<>();
+        for (int i = 0; i < (world != null ? n : 1); i++) queues.add(new ConcurrentLinkedQueue<>());
+        waiters = List.copyOf(queues);
+        spread(initialFood);
+    }
+
+    private int homeStripe(int cellId) {
+        return (cellId * 0x9E3779B9 >>> 16) & mask;
+    }
+
+    private static final class Waiter {
+        final Thread thread = Thread.currentThread();
+        final AtomicBoolean queued = new AtomicBoolean(false); // true while in waiters and not yet woken
     }
 
-    public boolean tryToEat(int cellId, long timeoutMs) throws InterruptedException {
-        //acquire food within the timeout
-        boolean acquired = foodSemaphore.tryAcquire(timeoutMs, java.util.concurrent.TimeUnit.MILLISECONDS);
-        if (acquired) {
-            availableFood.decrementAndGet();
-            // System.out.println("Cell " + cellId + " ate. Food left: " + availableFood.get());
-            return true;
+    //acquire food before expired says the cell starved, home stripe first then steal from neighbours.
+    //there is no timed wait here: the caller's timer unparks us at the deadline, food arriving unparks us before it
+    public boolean tryToEat(int cellId, BooleanSupplier expired) throws InterruptedException {
+        return tryToEatIn(homeStripe(cellId), expired);
+    }
+
+    // same, for an eater standing in a region of the spatial world
+    public boolean tryToEatIn(int region, BooleanSupplier expired) throws InterruptedException {
+        int home = region & mask;
+        ConcurrentLinkedQueue<Waiter> queue = waiters.get(neighbourhoods != null ? home : 0);
+        // one waiter per call, in the queue at most once: a drop polls it out when it wakes us, we re-enqueue it
+        // only after such a wake-up came to nothing
+        Waiter me = null;
+        try {
+            while (true) {
+                if (takeNear(home)) return true;
+                if (expired.getAsBoolean()) return false;
+                if (me == null) me = new Waiter();
+                if (me.queued.compareAndSet(false, true)) {
+                    queue.add(me);
+                    // food released between the scan and the enqueue found nobody to wake
+                    if (takeNear(home)) return true;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        } finally {
+            // still queued (fed, starved or interrupted without a drop waking us): take the entry out with us,
+            // otherwise every meal would leave one behind
+            if (me != null && me.queued.compareAndSet(true, false)) queue.remove(me);
+        }
+    }
+
+    // non-blocking variant for the event engine, which retries on its own schedule
+    public boolean tryToEatNow(int cellId) {
+        return takeNear(homeStripe(cellId));
+    }
+
+    public boolean tryToEatNowIn(int region) {
+        return takeNear(region & mask);
+    }
+
+    // that one stripe and nothing else, no stealing from the neighbours
+    public boolean tryToEatNowAt(int stripe) {
+        if (!stripes[stripe & mask].tryAcquire()) return false;
+        availableFood.decrement();
+        return true;
+    }
+
+    private boolean takeNear(int home) {
+        if (neighbourhoods == null) return takeFromAnyStripe(home);
+        for (int stripe : neighbourhoods[home]) {
+            if (stripes[stripe].tryAcquire()) {
+                availableFood.decrement();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean takeFromAnyStripe(int home) {
+        for (int i = 0; i <= mask; i++) {
+            if (stripes[(home + i) & mask].tryAcquire()) {
+                availableFood.decrement();
+                return true;
+            }
         }
         return false;
     }
 
     public void addFood(int amount) {
-        availableFood.addAndGet(amount);
-        foodSemaphore.release(amount);
-        System.out.println("Added " + amount + " food. Total: " + availableFood.get());
+        spread(amount);
+        if (logging) ConsoleLog.stdout().foodAdded(amount, getAvailableFood());
+    }
+
+    // returns the amount dropped so it can go into the event log
+    public int addFoodFromDeadCell(int deadCellId) {
+        return addFoodFromDeadCellIn(deadCellId, homeStripe(deadCellId));
+    }
+
+    public int addFoodFromDeadCellIn(int deadCellId, int region) {
+
+        int amount = 1 + nextDrop();
+        //dropped where the cell lived, neighbours can still steal it
+        addToStripe(region & mask, amount);
+        if (logging) ConsoleLog.stdout().foodDropped(deadCellId, amount);
+        return amount;
+    }
+
+    private int nextDrop() {
+        if (random == null) return ThreadLocalRandom.current().nextInt(5);
+        // SplittableRandom isn't thread-safe; the scheduler owns it but killAll drops from the request thread
+        synchronized (random) {
+            return random.nextInt(5);
+        }
     }
 
-    public void addFoodFromDeadCell(int deadCellId) {
+    private void spread(int amount) {
+        if (amount <= 0) return;
+        int n = stripes.length;
+        int start = spreadCursor.getAndAdd(amount) & mask;
+        for (int i = 0; i < n && i < amount; i++) {
+            int share = amount / n + (i < amount % n ? 1 : 0);
+            addToStripe((start + i) & mask, share);
+        }
+    }
 
-        int amount = 1 + (int)(Math.random() * 5);
-        addFood(amount);
-        System.out.println("Cell " + deadCellId + " died and dropped " + amount + " food.");
+    private void addToStripe(int stripe, int amount) {
+        availableFood.add(amount);
+        stripes[stripe].release(amount);
+        if (neighbourhoods == null) {
+            wakeWaiters(waiters.get(0), amount);
+            return;
+        }
+        for (int region : neighbourhoods[stripe]) {
+            amount = wakeWaiters(waiters.get(region), amount);
+            if (amount == 0) return;
+        }
     }
-    
 
+    // one parked eater per unit of food, they race for it like everyone else. returns the units nobody was woken for
+    private int wakeWaiters(ConcurrentLinkedQueue<Waiter> queue, int amount) {
+        Waiter waiter;
+        while (amount > 0 && (waiter = queue.poll()) != null) {
+            if (waiter.queued.compareAndSet(true, false)) {
+                LockSupport.unpark(waiter.thread);
+                amount--;
+            }
+        }
+        return amount;
+    }
+
+
+    // takes away exactly what it drains, like an eater does, rather than zeroing the total: food added or eaten
+    // while clearing stays counted once on both sides
     public void clear() {
+        for (Semaphore stripe : stripes) {
+            int drained = stripe.drainPermits();
+            if (drained > 0) availableFood.add(-drained);
+        }
+    }
 
-        foodSemaphore.drainPermits();
-        availableFood.set(0);
+    // snapshot restore: food back where it was when the stripe layout matches, otherwise spread like addFood
+    public void restoreFood(int[] perStripe) {
+        if (perStripe.length != stripes.length) {
+            long total = 0;
+            for (int food : perStripe) total += food;
+            spread((int) Math.min(Integer.MAX_VALUE, total));
+            return;
+        }
+        for (int i = 0; i < perStripe.length; i++) {
+            if (perStripe[i] > 0) addToStripe(i, perStripe[i]);
+        }
+    }
+
+    public void setLogging(boolean logging) {
+        this.logging = logging;
     }
 
     public int getAvailableFood() {
-        return availableFood.get();
+        return (int) Math.max(0, availableFood.sum());
+    }
+
+    // food lying in one stripe (region), for drawing it where it is
+    public int getFoodIn(int stripe) {
+        return stripes[stripe & mask].availablePermits();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
     }
 }
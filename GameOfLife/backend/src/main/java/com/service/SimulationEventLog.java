@@ -0,0 +1,280 @@
+package com.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// append-only binary log of everything that changes a simulation's state.
+// header = magic, version, seeded flag, seed. record = type byte, varint time delta, varint cell id, varint arg.
+// a few bytes per event into a 64KB chunk under a short lock; full chunks go to a background writer, so an
+// appender never waits on the disk unless the writer is a whole MAX_CHUNKS behind, and then not on the lock.
+// a ReentrantLock rather than synchronized: a virtual cell thread waiting for it unmounts instead of pinning
+public class SimulationEventLog implements Closeable {
+    public static final byte BIRTH_ASEXUAL = 1;
+    public static final byte BIRTH_SEXUAL = 2;
+    public static final byte EAT = 3;
+    public static final byte STARVE = 4;
+    public static final byte KILLED = 5;      // interrupted or simulation end
+    public static final byte DIVIDE = 6;      // cell = parent, the parent dies
+    public static final byte MATE = 7;        // cell = parent 1, arg = parent 2
+    public static final byte MEALS_RESET = 8; // cell = sexual cell done mating (or giving up)
+    public static final byte FOOD_DROP = 9;   // cell = dead cell, arg = amount
+    public static final byte FOOD_ADDED = 10; // arg = amount
+    public static final byte CLEARED = 11;    // killAll emptied the board and the pool
+
+    static final int MAGIC = 0x474F4C45; // "GOLE"
+    static final byte VERSION = 1;
+    private static final int CHUNK = 64 * 1024;
+    private static final int MAX_CHUNKS = 16;
+
+    // one thread writes the chunks of every log in the JVM, a log's chunks reach the file in hand-off order
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+            r -> Thread.ofPlatform().name("sim-event-log").daemon().unstarted(r));
+
+    private final Path path;
+    private final LongSupplier clock;
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayBlockingQueue<ByteBuffer> spare = new ArrayBlockingQueue<>(MAX_CHUNKS);
+    private ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+    private int chunks = 1; // allocated so far
+    private boolean closed = false;
+    private long lastTime = 0;
+    private long events = 0;
+    private volatile IOException failure; // the first write that failed, reported by flush and close
+
+    // clock is the engine's logical time, read under the log lock so records are always in time order
+    public SimulationEventLog(Path path, Long seed, LongSupplier clock) {
+        this.path = path;
+        this.clock = clock;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.putInt(MAGIC).put(VERSION).put((byte) (seed != null ? 1 : 0)).putLong(seed != null ? seed : 0L);
+    }
+
+    public void append(byte type, int cellId, int arg) {
+        lock.lock();
+        try {
+            if (!makeRoom()) return;
+            long time = Math.max(lastTime, clock.getAsLong());
+            buffer.put(type);
+            putVarLong(buffer, time - lastTime);
+            lastTime = time;
+            putVarLong(buffer, cellId & 0xFFFFFFFFL);
+            putVarLong(buffer, arg & 0xFFFFFFFFL);
+            events++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // a parallel tick's records from one region, encoded off the lock and appended in one piece. they all happen at
+    // the tick's time, so each is written with a zero delta and append(Batch) puts the real one into the first
+    public static final class Batch {
+        private ByteBuffer records = ByteBuffer.allocate(256);
+        private int count = 0;
+
+        public void add(byte type, int cellId, int arg) {
+            if (records.remaining() < 16) {
+                ByteBuffer grown = ByteBuffer.allocate(records.capacity() * 2);
+                records = grown.put(records.flip());
+            }
+            records.put(type).put((byte) 0);
+            putVarLong(records, cellId & 0xFFFFFFFFL);
+            putVarLong(records, arg & 0xFFFFFFFFL);
+            count++;
+        }
+
+        public boolean isEmpty() { return count == 0; }
+
+        public void clear() {
+            records.clear();
+            count = 0;
+        }
+    }
+
+    // the batch's records after everything appended so far, as if each had gone through append one by one
+    public void append(Batch batch) {
+        if (batch.isEmpty()) return;
+        lock.lock();
+        try {
+            if (!makeRoom()) return;
+            ByteBuffer records = batch.records;
+            long time = Math.max(lastTime, clock.getAsLong());
+            buffer.put(records.get(0));
+            putVarLong(buffer, time - lastTime);
+            lastTime = time;
+            // the rest as it is, across as many chunks as it takes. no waiting for a spare in between, one record
+            // half in the log would let another appender's land in the middle of the batch
+            int from = 2, to = records.position();
+            while (from < to) {
+                if (!buffer.hasRemaining()) handOff(spareOrNew());
+                int n = Math.min(buffer.remaining(), to - from);
+                buffer.put(buffer.position(), records, from, n).position(buffer.position() + n);
+                from += n;
+            }
+            events += batch.count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void putVarLong(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    // with the lock held: false when the log is closed, otherwise the current chunk has room for one record.
+    // when the disk is that far behind the appender waits for a spare chunk with the lock let go, so the others
+    // can keep appending into what is left of the chunk (and then wait for the writer the same way)
+    private boolean makeRoom() {
+        boolean interrupted = false;
+        try {
+            while (!closed && buffer.remaining() < 32) {
+                ByteBuffer next = spare.poll();
+                if (next == null && chunks < MAX_CHUNKS) {
+                    chunks++;
+                    next = ByteBuffer.allocate(CHUNK);
+                }
+                if (next == null) {
+                    lock.unlock();
+                    try {
+                        next = spare.take();
+                    } catch (InterruptedException e) {
+                        interrupted = true; // a cancelled cell still gets its record in, the flag goes back below
+                        continue;
+                    } finally {
+                        lock.lock();
+                    }
+                    // someone else made room meanwhile, the chunk is spare again
+                    if (buffer.remaining() >= 32 || closed) {
+                        spare.offer(next);
+                        continue;
+                    }
+                }
+                handOff(next);
+            }
+            return !closed;
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    // a spare chunk without waiting: in the middle of a batch the log grows past MAX_CHUNKS for a moment instead
+    private ByteBuffer spareOrNew() {
+        ByteBuffer next = spare.poll();
+        if (next != null) return next;
+        chunks++;
+        return ByteBuffer.allocate(CHUNK);
+    }
+
+    // the current chunk goes to the writer, appending carries on in next
+    private void handOff(ByteBuffer next) {
+        ByteBuffer full = buffer;
+        buffer = next;
+        WRITER.execute(() -> write(full));
+    }
+
+    // writer thread only
+    private void write(ByteBuffer chunk) {
+        chunk.flip();
+        try {
+            while (chunk.hasRemaining()) channel.write(chunk);
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        } finally {
+            chunk.clear();
+            spare.offer(chunk);
+        }
+    }
+
+    // everything appended so far is in the file when this returns. the wait is outside the lock
+    public void flush() {
+        Future<?> written;
+        lock.lock();
+        try {
+            if (closed) return;
+            if (buffer.position() > 0) handOff(spareOrNew());
+            written = WRITER.submit(() -> {});
+        } finally {
+            lock.unlock();
+        }
+        await(written);
+    }
+
+    public long getEventCount() {
+        lock.lock();
+        try {
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getPath() { return path; }
+
+    @Override
+    public void close() {
+        Future<?> closing;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            if (buffer.position() > 0) handOff(spareOrNew());
+            closing = WRITER.submit(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        await(closing);
+    }
+
+    // closes the log and removes its file, once nothing will replay it any more
+    public void delete() {
+        try {
+            close();
+        } finally {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void await(Future<?> done) {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        IOException e = failure;
+        if (e != null) throw new UncheckedIOException("Event log write failed: " + path, e);
+    }
+}
@@ -0,0 +1,66 @@
+package com.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// JFR events around the sections where cells wait on each other. they cost next to nothing unless a recording
+// is running, and the thresholds keep a recording down to the slow cases:
+//   java -XX:StartFlightRecording=filename=sim.jfr ...   then   jfr print --categories "Cell Simulation" sim.jfr
+public final class SimulationEvents {
+    private static final String CATEGORY = "Cell Simulation";
+
+    private SimulationEvents() {}
+
+    @Name("gameoflife.EatWait")
+    @Label("Eat Wait")
+    @Category(CATEGORY)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class EatWait extends Event {
+        @Label("Cell Id") public int cellId;
+        @Label("Fed") public boolean fed;
+    }
+
+    @Name("gameoflife.MatingSearch")
+    @Label("Mating Search")
+    @Category(CATEGORY)
+    @Threshold("100 us")
+    @StackTrace(false)
+    public static final class MatingSearch extends Event {
+        @Label("Cell Id") public int cellId;
+        @Label("Found") public boolean found;
+    }
+
+    @Name("gameoflife.PauseWait")
+    @Label("Pause Wait")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class PauseWait extends Event {
+    }
+
+    @Name("gameoflife.StatusBuild")
+    @Label("Status Frame Build")
+    @Category(CATEGORY)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class StatusBuild extends Event {
+        @Label("Cells") public int cells;
+    }
+
+    @Name("gameoflife.ParallelTick")
+    @Label("Parallel Tick")
+    @Category(CATEGORY)
+    @Threshold("10 ms")
+    @StackTrace(false)
+    public static final class ParallelTick extends Event {
+        @Label("Busy Regions") public int regions;
+        @Label("Tasks") public int tasks;
+        @Label("Cell Steps") public long steps;
+        @Label("Merge Nanos") public long mergeNanos;
+        @Label("Feed Nanos") public long feedNanos; // the part of the merge that runs colour by colour in parallel
+    }
+}
@@ -0,0 +1,51 @@
+package com.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// monotonic counters and latency histograms of one CellManager, scraped by the metrics endpoint. unlike the
+// manager's own totals nothing here is reset by killAll, a scraper sees counters that only go up.
+// hot paths only bump a LongAdder, anything that needs the clock is on a path that already waits or searches
+public class SimulationMetrics {
+    private final LongAdder meals = new LongAdder();
+    private final LongAdder starvations = new LongAdder();
+    private final LongAdder divisions = new LongAdder();
+    private final LongAdder reproductions = new LongAdder();
+    private final LongAdder matingSearches = new LongAdder();
+    private final LongAdder matingFailures = new LongAdder();
+
+    private final LatencyHistogram eatWait = new LatencyHistogram();
+    private final LatencyHistogram matingSearch = new LatencyHistogram();
+    private final LatencyHistogram pauseWait = new LatencyHistogram();
+    private final LatencyHistogram statusBuild = new LatencyHistogram();
+
+    public void countMeal() { meals.increment(); }
+    public void countStarvation() { starvations.increment(); }
+    public void countDivision() { divisions.increment(); }
+    public void countReproduction() { reproductions.increment(); }
+
+    // blocking eats only (thread engines), the event engines never wait for food
+    public void eatWaited(long nanos) { eatWait.record(nanos); }
+
+    public void matingSearched(boolean found) {
+        matingSearches.increment();
+        if (!found) matingFailures.increment();
+    }
+
+    // sampled by the caller, the histogram's count is a fraction of matingSearches
+    public void matingSearchTimed(long nanos) { matingSearch.record(nanos); }
+
+    public void pauseWaited(long nanos) { pauseWait.record(nanos); }
+    public void statusBuilt(long nanos) { statusBuild.record(nanos); }
+
+    public long getMeals() { return meals.sum(); }
+    public long getStarvations() { return starvations.sum(); }
+    public long getDivisions() { return divisions.sum(); }
+    public long getReproductions() { return reproductions.sum(); }
+    public long getMatingSearches() { return matingSearches.sum(); }
+    public long getMatingFailures() { return matingFailures.sum(); }
+
+    public LatencyHistogram getEatWait() { return eatWait; }
+    public LatencyHistogram getMatingSearch() { return matingSearch; }
+    public LatencyHistogram getPauseWait() { return pauseWait; }
+    public LatencyHistogram getStatusBuild() { return statusBuild; }
+}
@@ -0,0 +1,97 @@
+package com.service;
+
+import java.util.Arrays;
+
+// optional 2D world: a SIZE x SIZE square cut into a uniform side x side grid of regions. each region is one
+// food stripe of the ResourcePool and one mating queue, and a cell only eats and mates within the 3x3 regions
+// around its own, so contention follows local density instead of the total population.
+// positions live in the CellStore; movement and birth scatter come from a hash of (id, time) rather than a
+// shared RNG, so a seeded run stays deterministic and cells on different threads never touch common state
+public class SpatialWorld {
+    public static final double SIZE = 100.0;
+    public static final int DEFAULT_SIDE = 8; // 64 regions, the pool's stripe limit
+    private static final double WANDER = 2.0;       // how far a cell moves per wake-up, at most
+    private static final double BIRTH_SPREAD = 3.0; // offspring land this close to their parent
+    private static final double MARGIN = 2.0;
+
+    private final int side;
+    private final double regionSize;
+    private final int[][] neighbourhoods;
+
+    public SpatialWorld(int side) {
+        // regions are pool stripes, which come in powers of two
+        this.side = Integer.highestOneBit(Math.max(1, Math.min(side, DEFAULT_SIDE)));
+        this.regionSize = SIZE / this.side;
+        int regions = this.side * this.side;
+        this.neighbourhoods = new int[regions][];
+        for (int r = 0; r < regions; r++) neighbourhoods[r] = around(r);
+    }
+
+    // home region first, then its (up to 8) neighbours; no wrap-around at the edges
+    private int[] around(int region) {
+        int cx = region % side, cy = region / side;
+        int[] out = new int[9];
+        int n = 0;
+        out[n++] = region;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int x = cx + dx, y = cy + dy;
+                if ((dx != 0 || dy != 0) && x >= 0 && x < side && y >= 0 && y < side) out[n++] = y * side + x;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    public int regions() { return side * side; }
+    public int side() { return side; }
+    public int[] neighbourhood(int region) { return neighbourhoods[region]; }
+
+    public int regionAt(double x, double y) {
+        int cx = Math.min(side - 1, Math.max(0, (int) (x / regionSize)));
+        int cy = Math.min(side - 1, Math.max(0, (int) (y / regionSize)));
+        return cy * side + cx;
+    }
+
+    public int regionOf(CellStore store, int slot) {
+        return regionAt(store.x(slot), store.y(slot));
+    }
+
+    public void placeRandomly(CellStore store, int slot, int id) {
+        store.setPosition(slot, clamp(SIZE / 2 + noise(id, 1) * SIZE / 2), clamp(SIZE / 2 + noise(id, 2) * SIZE / 2));
+    }
+
+    public void placeNear(CellStore store, int slot, int id, int parentSlot) {
+        store.setPosition(slot,
+                clamp(store.x(parentSlot) + noise(id, 3) * BIRTH_SPREAD),
+                clamp(store.y(parentSlot) + noise(id, 4) * BIRTH_SPREAD));
+    }
+
+    // a small random step, taken whenever the cell wakes up
+    public void wander(CellStore store, int slot, int id, long now) {
+        store.setPosition(slot,
+                clamp(store.x(slot) + noise(id, now * 2) * WANDER),
+                clamp(store.y(slot) + noise(id, now * 2 + 1) * WANDER));
+    }
+
+    // fixed spots inside a region for drawing its food
+    public double foodX(int region, int i) {
+        return (region % side) * regionSize + (noise(region, 1000 + i) + 1) / 2 * regionSize;
+    }
+
+    public double foodY(int region, int i) {
+        return (region / side) * regionSize + (noise(region, 2000 + i) + 1) / 2 * regionSize;
+    }
+
+    private static float clamp(double v) {
+        return (float) Math.max(MARGIN, Math.min(SIZE - MARGIN, v));
+    }
+
+    // uniform in [-1, 1), a pure function of its inputs (SplittableRandom's mix64 finalizer)
+    static double noise(long id, long salt) {
+        long z = id * 0x9E3779B97F4A7C15L + salt * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-52 - 1.0;
+    }
+}
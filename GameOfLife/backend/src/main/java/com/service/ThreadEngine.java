@@ -0,0 +1,104 @@
+package com.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.model.Cell;
+
+// one blocking Cell.run() per thread, platform or virtual. the threads of a population belong to one executor,
+// so cancelling them is a single shutdownNow() and waiting for them a single awaitTermination()
+public class ThreadEngine implements CellEngine {
+    private final boolean virtual;
+    private final long startNanos = System.nanoTime();
+    private volatile ExecutorService cells;
+    private final Set<Thread> running = ConcurrentHashMap.newKeySet(); // threads inside a Cell.run()
+    private volatile boolean shutdown = false;
+
+    public ThreadEngine(boolean virtual) {
+        this.virtual = virtual;
+        this.cells = newGroup();
+    }
+
+    // virtual threads park on the heap instead of holding a native stack
+    private ExecutorService newGroup() {
+        return Executors.newThreadPerTaskExecutor(virtual
+                ? Thread.ofVirtual().factory()
+                : Thread.ofPlatform().factory());
+    }
+
+    // a finished task cleans up through its own Cell, never by id: ids start over at 1 after a reset, so a late
+    // thread of the old population would otherwise unregister a new cell
+    @Override
+    public void launch(Cell cell) {
+        Runnable task = () -> {
+            Thread me = Thread.currentThread();
+            me.setName("Cell-" + cell.id);
+            running.add(me);
+            try {
+                cell.run();
+            } finally {
+                running.remove(me);
+                cell.retire();
+            }
+        };
+        try {
+            cells.execute(task);
+        } catch (RejectedExecutionException e) {
+            // born while its group was being cancelled
+            cell.discard();
+            cell.retire();
+        }
+    }
+
+    @Override
+    public boolean cancelCells(long timeoutMs) throws InterruptedException {
+        ExecutorService group = cells;
+        group.shutdownNow();
+        boolean done = group.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        if (!shutdown) cells = newGroup();
+        return done;
+    }
+
+    // a paused cell parks at its next safepoint; one that sleeps or waits for food is parked already and stays so,
+    // the timers are frozen and nobody drops food. so it is enough to wait until no thread is running
+    @Override
+    public boolean awaitPaused(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!allParked()) {
+            if (System.nanoTime() >= deadline) return false;
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private boolean allParked() {
+        for (Thread t : running) {
+            Thread.State state = t.getState();
+            if (state != Thread.State.WAITING && state != Thread.State.TIMED_WAITING && state != Thread.State.TERMINATED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean shutdown(long timeoutMs) throws InterruptedException {
+        shutdown = true;
+        return cancelCells(timeoutMs);
+    }
+
+    // thread mode has no logical clock, wall time is the best it can do
+    @Override
+    public long now() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    @Override
+    public long cellUpdates() {
+        return 0;
+    }
+}
@@ -0,0 +1,164 @@
+package com.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.model.Cell;
+
+// discrete-event engine: one scheduler thread steps every cell as a state machine, ordered by virtual wake-up time
+public class TickEngine implements CellEngine {
+    private static final long MAX_PARK_MS = 50;
+    // one revolution covers the longest default sleep (LOOP_DELAY + fullTime), longer ones take extra rounds
+    private static final int WHEEL_SLOTS = 8192;
+
+    private final CellManager manager;
+    private final TimingWheel<Cell> wheel = new TimingWheel<>(WHEEL_SLOTS); // scheduler thread only
+    private final ConcurrentLinkedQueue<Cell> arrivals = new ConcurrentLinkedQueue<>();
+    private final boolean threaded;
+    private final Thread scheduler;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    // held while a batch of cells is stepped, so cancelCells can wait for the one under way to finish
+    private final ReentrantLock stepping = new ReentrantLock();
+    private volatile boolean running = true;
+
+    private double now = 0; // virtual ms
+    private volatile long clock = 0; // time of the event being stepped, readable from any thread
+    private long steps = 0; // scheduler thread only
+    private volatile long cellUpdates = 0; // steps as of the end of the last batch
+
+    public TickEngine(CellManager manager, boolean threaded) {
+        this.manager = manager;
+        this.threaded = threaded;
+        this.scheduler = Thread.ofPlatform().name("Cell-Scheduler").daemon().unstarted(this::loop);
+    }
+
+    @Override
+    public void launch(Cell cell) {
+        arrivals.add(cell);
+        if (!threaded) return;
+        if (started.compareAndSet(false, true)) scheduler.start();
+        else LockSupport.unpark(scheduler);
+    }
+
+    // killed cells are already marked dead, each is retired at its next wake-up without stepping. what's left is
+    // the batch being stepped right now, which may still have seen them alive: wait for its tick boundary
+    @Override
+    public boolean cancelCells(long timeoutMs) throws InterruptedException {
+        return awaitPaused(timeoutMs);
+    }
+
+    // the scheduler checks the pause before every tick and doesn't take the lock again until it is resumed
+    @Override
+    public boolean awaitPaused(long timeoutMs) throws InterruptedException {
+        if (!stepping.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) return false;
+        stepping.unlock();
+        return true;
+    }
+
+    @Override
+    public boolean shutdown(long timeoutMs) throws InterruptedException {
+        running = false;
+        scheduler.interrupt();
+        if (!started.get()) return true;
+        scheduler.join(Math.max(1, timeoutMs));
+        return !scheduler.isAlive();
+    }
+
+    @Override
+    public long now() {
+        return clock;
+    }
+
+    @Override
+    public long cellUpdates() {
+        return cellUpdates;
+    }
+
+    // births are stamped with their parent's event time, not wherever the wall clock pushed now,
+    // so a seeded run takes the same path whatever the speed or machine. a cell restored from a snapshot
+    // already has a later wake-up in the store
+    private void admitArrivals(long at) {
+        Cell born;
+        while ((born = arrivals.poll()) != null) wheel.schedule(Math.max(at, born.getNextWake()), born);
+    }
+
+    private void step(long at, Cell cell) {
+        clock = at;
+        steps++;
+        long wakeAt = cell.step(at);
+        if (wakeAt >= 0) {
+            cell.setNextWake(wakeAt);
+            wheel.schedule(wakeAt, cell);
+        } else {
+            cell.retire();
+        }
+        admitArrivals(at);
+    }
+
+    // same event order as loop() at max speed, but on the calling thread and with no clock at all
+    public long runHeadless(long horizon) {
+        stepping.lock();
+        try {
+            admitArrivals((long) now);
+            wheel.advance(horizon, this::step);
+            cellUpdates = steps;
+            now = Math.max(now, clock);
+            return (long) now;
+        } finally {
+            stepping.unlock();
+        }
+    }
+
+    private void loop() {
+        long lastNanos = System.nanoTime();
+        while (running) {
+            long control = manager.controlWord();
+            if (ControlWord.isShutdown(control)) break;
+            if (ControlWord.isPaused(control)) {
+                manager.checkPause();
+                lastNanos = System.nanoTime(); // paused time does not count as simulated time
+            }
+            if (Thread.currentThread().isInterrupted()) break;
+            if (ControlWord.isPaused(control)) continue; // resumed, start over with a fresh word
+
+            double scale = ControlWord.timeScale(control);
+            stepping.lock();
+            try {
+                // cells added from outside (controller, initial population) start at the current time
+                admitArrivals((long) now);
+
+                long wallNow = System.nanoTime();
+                if (scale <= 0 && wheel.size() > 0) {
+                    // as fast as possible: jump straight to the next event
+                    now = Math.max(now, wheel.nextDue(Long.MAX_VALUE));
+                } else if (scale > 0) {
+                    now += (wallNow - lastNanos) / 1_000_000.0 / scale;
+                }
+                lastNanos = wallNow;
+
+                // the whole batch of cells due by now, tick by tick. a pause stops it at the next tick boundary,
+                // virtual time stays where the last fired tick was
+                long target = (long) now;
+                while (running && wheel.cursor() <= target && wheel.size() > 0) {
+                    if (ControlWord.isPaused(manager.controlWord())) {
+                        now = wheel.cursor() - 1;
+                        break;
+                    }
+                    wheel.advance(wheel.cursor(), this::step);
+                }
+                cellUpdates = steps;
+            } finally {
+                stepping.unlock();
+            }
+
+            if (scale <= 0 && wheel.size() > 0) continue;
+            long parkMs = MAX_PARK_MS;
+            long due = scale > 0 ? wheel.nextDue((long) now + (long) Math.ceil(MAX_PARK_MS / scale)) : -1;
+            if (due >= 0) parkMs = Math.min(parkMs, (long) Math.ceil((due - now) * scale));
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, parkMs)));
+        }
+    }
+}
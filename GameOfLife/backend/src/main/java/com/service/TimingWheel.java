@@ -0,0 +1,157 @@
+package com.service;
+
+// hashed timing wheel over virtual ms: one bucket per ms, a timer goes into bucket (at % size) in O(1) and
+// advance() fires a whole bucket per tick. anything further out than one revolution just stays in its bucket
+// for another round. timers fire in (at, scheduling order), which is what keeps a seeded run's event order
+// identical to the old (at, seq) priority queue. single-threaded: whoever drives it owns it
+public class TimingWheel<T> {
+    private static final class Node<T> {
+        final long at;
+        final T item;
+        Node<T> next;
+
+        Node(long at, T item) {
+            this.at = at;
+            this.item = item;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler<T> {
+        void fire(long at, T item);
+    }
+
+    private final Node<T>[] heads;
+    private final Node<T>[] tails;
+    // the earliest tick each bucket has something due at, and one bit per non-empty bucket, so nextDue()
+    // skips empty buckets 64 at a time instead of walking every node
+    private final long[] firstDue;
+    private final long[] occupied;
+    private final int mask;
+    private long cursor = 0; // the next tick advance() looks at, every timer before it has fired
+    private int size = 0;
+
+    public TimingWheel(int slots) {
+        int n = Integer.highestOneBit(Math.max(16, slots) * 2 - 1);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<T>[] h = new Node[n], t = new Node[n];
+        this.heads = h;
+        this.tails = t;
+        this.firstDue = new long[n];
+        this.occupied = new long[(n + 63) >>> 6];
+        this.mask = n - 1;
+    }
+
+    // a timer in the past fires on the next tick, with its own time and ahead of anything due later than it
+    public void schedule(long at, T item) {
+        Node<T> node = new Node<>(at, item);
+        int b;
+        if (at >= cursor) {
+            b = (int) (at & mask);
+            if (tails[b] == null) heads[b] = node;
+            else tails[b].next = node;
+            tails[b] = node;
+        } else {
+            b = (int) (cursor & mask);
+            insertInOrder(b, node);
+        }
+        noteDue(b, Math.max(at, cursor));
+        size++;
+    }
+
+    // after every node due no later than it, before the first one due later
+    private void insertInOrder(int b, Node<T> node) {
+        Node<T> prev = null, n = heads[b];
+        while (n != null && n.at <= node.at) {
+            prev = n;
+            n = n.next;
+        }
+        node.next = n;
+        if (prev == null) heads[b] = node;
+        else prev.next = node;
+        if (n == null) tails[b] = node;
+    }
+
+    private void noteDue(int b, long due) {
+        long word = occupied[b >>> 6];
+        long bit = 1L << b;
+        if ((word & bit) == 0 || due < firstDue[b]) firstDue[b] = due;
+        occupied[b >>> 6] = word | bit;
+    }
+
+    // fires every timer due at or before upTo, tick by tick. timers scheduled while firing (for the tick
+    // being fired or a later one up to upTo) fire in the same call
+    public void advance(long upTo, Handler<T> fire) {
+        while (cursor <= upTo && size > 0) {
+            fireTick(cursor, fire);
+            cursor++;
+        }
+        if (size == 0 && cursor <= upTo) cursor = upTo + 1;
+    }
+
+    // takes the bucket's nodes one at a time, so whatever a handler schedules into it lands in order
+    private void fireTick(long tick, Handler<T> fire) {
+        int b = (int) (tick & mask);
+        if ((occupied[b >>> 6] & (1L << b)) == 0) return;
+        Node<T> keepHead = null, keepTail = null; // later rounds, kept in their original order
+        long keepDue = Long.MAX_VALUE;
+        Node<T> node;
+        while ((node = heads[b]) != null) {
+            heads[b] = node.next;
+            if (heads[b] == null) tails[b] = null;
+            node.next = null;
+            if (node.at <= tick) {
+                size--;
+                fire.fire(node.at, node.item);
+            } else {
+                if (keepTail == null) keepHead = node;
+                else keepTail.next = node;
+                keepTail = node;
+                keepDue = Math.min(keepDue, node.at);
+            }
+        }
+        heads[b] = keepHead;
+        tails[b] = keepTail;
+        if (keepHead != null) firstDue[b] = keepDue;
+        else occupied[b >>> 6] &= ~(1L << b);
+    }
+
+    // earliest pending tick, at most limit; -1 when nothing is due by then
+    public long nextDue(long limit) {
+        if (size == 0) return -1;
+        int start = (int) (cursor & mask);
+        long later = Long.MAX_VALUE; // buckets whose nodes are all a revolution or more away
+        // occupied buckets in tick order: the cursor's bucket up to the end of the array, then around from 0
+        for (int b = nextOccupied(start, mask + 1); b >= 0; b = nextOccupied(b + 1, mask + 1)) {
+            long t = cursor + (b - start);
+            if (t > limit) return -1;
+            if (firstDue[b] <= t) return t;
+            later = Math.min(later, firstDue[b]);
+        }
+        for (int b = nextOccupied(0, start); b >= 0; b = nextOccupied(b + 1, start)) {
+            long t = cursor + (mask + 1 - start) + b;
+            if (t > limit) return -1;
+            if (firstDue[b] <= t) return t;
+            later = Math.min(later, firstDue[b]);
+        }
+        return later <= limit ? later : -1;
+    }
+
+    // first non-empty bucket in [from, to), -1 if none
+    private int nextOccupied(int from, int to) {
+        if (from >= to) return -1;
+        int w = from >>> 6;
+        long word = occupied[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int b = (w << 6) + Long.numberOfTrailingZeros(word);
+                return b < to ? b : -1;
+            }
+            if (++w << 6 >= to) return -1;
+            word = occupied[w];
+        }
+    }
+
+    public long cursor() { return cursor; }
+    public int size() { return size; }
+}
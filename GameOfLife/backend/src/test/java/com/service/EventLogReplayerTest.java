@@ -0,0 +1,54 @@
+package com.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventLogReplayerTest {
+    @TempDir
+    Path dir;
+
+    // a run that clears the board halfway: the totals start over from the clear, like CellManager's do
+    @Test
+    void replayAcrossClearCountsOnlyWhatCameAfter() {
+        Path path = dir.resolve("cleared.evlog");
+        long[] now = {0};
+        try (SimulationEventLog log = new SimulationEventLog(path, 42L, () -> now[0])) {
+            log.append(SimulationEventLog.FOOD_ADDED, 0, 10);
+            log.append(SimulationEventLog.BIRTH_ASEXUAL, 1, 0);
+            log.append(SimulationEventLog.BIRTH_SEXUAL, 2, 0);
+            log.append(SimulationEventLog.BIRTH_SEXUAL, 3, 0);
+            now[0] = 100;
+            log.append(SimulationEventLog.EAT, 1, 0);
+            log.append(SimulationEventLog.DIVIDE, 1, 0);
+            log.append(SimulationEventLog.MATE, 2, 3);
+            log.append(SimulationEventLog.STARVE, 3, 0);
+            now[0] = 200;
+            log.append(SimulationEventLog.CLEARED, 0, 0);
+            now[0] = 300;
+            log.append(SimulationEventLog.FOOD_ADDED, 0, 5);
+            log.append(SimulationEventLog.BIRTH_ASEXUAL, 1, 0);
+            log.append(SimulationEventLog.BIRTH_ASEXUAL, 2, 0);
+            log.append(SimulationEventLog.DIVIDE, 2, 0);
+        }
+
+        EventLogReplayer.ReplayState before = EventLogReplayer.replay(path, 199);
+        assertEquals(1, before.divisions());
+        assertEquals(1, before.reproductions());
+        assertEquals(1, before.starvations());
+        assertEquals(9, before.availableFood());
+        assertEquals(1, before.aliveSexual());
+
+        EventLogReplayer.ReplayState after = EventLogReplayer.replay(path, Long.MAX_VALUE);
+        assertEquals(1, after.divisions());
+        assertEquals(0, after.reproductions());
+        assertEquals(0, after.starvations());
+        assertEquals(5, after.availableFood());
+        assertEquals(1, after.aliveAsexual());
+        assertEquals(0, after.aliveSexual());
+        assertEquals(300, after.time());
+    }
+}
@@ -87,14 +87,35 @@ export default function GameOfLife() {
     }, [view]);
 
     useEffect(() => {
+        let stream;
         if (view === 'summary') {
             setLoadingSummary(true);
             setSummary(null);
             fetch('http://localhost:8080/api/simulation/ai/summary')
                 .then(res => res.json())
-                .then(data => { setSummary(data); setLoadingSummary(false); })
+                .then(data => {
+                    setSummary(data);
+                    setLoadingSummary(false);
+                    if (data.status !== 'pending') return;
+                    // the model is still writing: show its words as they come instead of a spinner
+                    let text = '';
+                    stream = new EventSource(`http://localhost:8080/api/simulation/ai/summary/stream?requestId=${data.requestId}`);
+                    stream.addEventListener('token', e => {
+                        text += JSON.parse(e.data);
+                        setSummary(prev => ({ ...prev, aiAnalysis: text, status: 'pending' }));
+                    });
+                    stream.addEventListener('done', () => {
+                        stream.close();
+                        setSummary(prev => ({ ...prev, status: 'ready' }));
+                    });
+                    stream.addEventListener('error', e => {
+                        stream.close();
+                        if (e.data) setSummary(prev => ({ ...prev, aiAnalysis: JSON.parse(e.data), status: 'error' }));
+                    });
+                })
                 .catch(() => { setSummary({ aiAnalysis: "AI OFFLINE" }); setLoadingSummary(false); });
         }
+        return () => stream && stream.close();
     }, [view]);
 
     const handleTerminate = async () => {